@@ -0,0 +1,91 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.handler.*;
+import nl.quintor.studybits.indy.SimulatedEnvelopeCodec;
+import nl.quintor.studybits.indy.SimulatedLedger;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.repository.StudentRepository;
+import nl.quintor.studybits.service.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The agent's services and handlers on an in-memory H2 database, with the wallet and ledger replaced by
+ * {@link SimulatedEnvelopeCodec} and {@link SimulatedLedger}, without latency. Nothing is component scanned, so IndyConfiguration never opens a wallet.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {SecurityAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class})
+@EntityScan(basePackageClasses = Student.class)
+@EnableJpaRepositories(basePackageClasses = StudentRepository.class)
+@Import({AgentService.class, MessageHandlerRegistry.class, CredentialOffersHandler.class, ExchangePositionsHandler.class,
+        CredentialRequestHandler.class, ProofHandler.class, ProofStatusesHandler.class, StudentService.class, ExchangePositionService.class,
+        ProofRequestTemplateCatalog.class, CredentialOfferCache.class, LedgerStateService.class, StudentCache.class, ReplayCache.class, MessageLanes.class, CredentialDefinitionService.class, ProofStatusService.class})
+public class BenchmarkApplication {
+    @Bean
+    public SimulatedEnvelopeCodec envelopeCodec() {
+        return new SimulatedEnvelopeCodec(0);
+    }
+
+    @Bean
+    public SimulatedLedger simulatedLedger() {
+        return new SimulatedLedger(0);
+    }
+
+    @Bean
+    public IdentityService identityService() {
+        return new IdentityService();
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    /**
+     * Runs the asynchronous steps on the calling thread, so a benchmark measures work instead of thread hand-offs.
+     */
+    @Bean
+    public Executor agentExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * Verifies a proof before its receipt is returned, so the proof benchmark includes the verification.
+     */
+    @Bean
+    public Executor proofVerificationExecutor() {
+        return Runnable::run;
+    }
+
+    static ConfigurableApplicationContext start() {
+        StudyBitsMessageTypes.init();
+        IndyMessageTypes.init();
+
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "logging.level.root=warn",
+                        // The simulated codec encrypts the same message to the same envelope, which would be replayed
+                        "nl.quintor.studybits.replay-cache.enabled=false",
+                        "nl.quintor.studybits.university.name=Rijksuniversiteit Groningen")
+                .run();
+    }
+}
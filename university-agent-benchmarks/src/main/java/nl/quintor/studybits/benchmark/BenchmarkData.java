@@ -0,0 +1,60 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.entity.ExchangePosition;
+import nl.quintor.studybits.indy.wrapper.dto.AttributeInfo;
+import nl.quintor.studybits.indy.wrapper.dto.Filter;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+import nl.quintor.studybits.messages.AuthcryptableExchangePositions;
+import nl.quintor.studybits.service.ExchangePositionService;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Payloads shaped like the ones the agent exchanges with students.
+ */
+final class BenchmarkData {
+    static final String STUDENT_DID = "SYqJSzcfsJMhSt7qjcQ8CC";
+    static final String CREDENTIAL_DEFINITION_ID = "Th7MpTaRZVRYnPiabds81Y:3:CL:1:default";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * The proof request template ExchangePositionService stores for an exchange position, without a nonce.
+     */
+    static ProofRequest proofRequestTemplate() {
+        List<Filter> transcriptFilter = Collections.singletonList(new Filter(CREDENTIAL_DEFINITION_ID));
+        return ProofRequest.builder()
+                .name("ExchangePosition")
+                .version("0.1")
+                .requestedAttribute("attr1_referent", new AttributeInfo("first_name", Optional.of(transcriptFilter)))
+                .requestedAttribute("attr2_referent", new AttributeInfo("last_name", Optional.of(transcriptFilter)))
+                .requestedAttribute("attr3_referent", new AttributeInfo("degree", Optional.of(transcriptFilter)))
+                .requestedAttribute("attr4_referent", new AttributeInfo("status", Optional.of(transcriptFilter)))
+                .build();
+    }
+
+    static ExchangePosition exchangePosition(long id) throws Exception {
+        ExchangePosition exchangePosition = new ExchangePosition();
+        exchangePosition.setId(id);
+        exchangePosition.setName("MSc Marketing");
+        exchangePosition.setProofRequestTemplate(proofRequestTemplate().toJSON());
+        return exchangePosition;
+    }
+
+    static AuthcryptableExchangePositions exchangePositions(int count) {
+        List<ExchangePositionService.ExchangePositionDto> exchangePositions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProofRequest proofRequest = proofRequestTemplate();
+            // An 80 bit nonce, like the agent sends
+            proofRequest.setNonce(new BigInteger(80, ThreadLocalRandom.current()).toString());
+            exchangePositions.add(new ExchangePositionService.ExchangePositionDto("MSc Marketing", proofRequest, false));
+        }
+        return new AuthcryptableExchangePositions(exchangePositions);
+    }
+}
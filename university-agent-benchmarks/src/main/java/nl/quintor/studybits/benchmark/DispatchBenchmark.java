@@ -0,0 +1,93 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.entity.Transcript;
+import nl.quintor.studybits.indy.SimulatedEnvelopeCodec;
+import nl.quintor.studybits.indy.SimulatedLedger;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialRequest;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.repository.StudentRepository;
+import nl.quintor.studybits.service.AgentService;
+import nl.quintor.studybits.service.CredentialDefinitionService;
+import nl.quintor.studybits.service.ExchangePositionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AgentService#processMessage(MessageEnvelope)} for each message type a student sends, from decrypting the
+ * envelope to encrypting the response, on an in-memory database and against {@link SimulatedEnvelopeCodec} and {@link SimulatedLedger}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+    private ConfigurableApplicationContext context;
+    private AgentService agentService;
+
+    private MessageEnvelope credentialOffersRequest;
+    private MessageEnvelope exchangePositionsRequest;
+    private MessageEnvelope credentialRequest;
+    private MessageEnvelope proof;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        agentService = context.getBean(AgentService.class);
+
+        context.getBean(CredentialDefinitionService.class).createCredentialDefintion("schemaId");
+
+        Student student = new Student();
+        student.setStudentId("12345678");
+        student.setFirstName("Lisa");
+        student.setLastName("Veren");
+        student.setStudentDid(BenchmarkData.STUDENT_DID);
+        student.setTranscript(new Transcript("Bachelor of Arts, Marketing", "enrolled", "8", false));
+        context.getBean(StudentRepository.class).saveAndFlush(student);
+
+        ExchangePositionService exchangePositionService = context.getBean(ExchangePositionService.class);
+        for (int i = 0; i < 10; i++) {
+            exchangePositionService.createExchangePosition(BenchmarkData.CREDENTIAL_DEFINITION_ID);
+        }
+
+        SimulatedEnvelopeCodec codec = context.getBean(SimulatedEnvelopeCodec.class);
+        credentialOffersRequest = codec.encryptMessage(IndyMessageTypes.CREDENTIAL_OFFERS.getURN(), IndyMessageTypes.GET_REQUEST, BenchmarkData.STUDENT_DID).get();
+        exchangePositionsRequest = codec.encryptMessage(StudyBitsMessageTypes.EXCHANGE_POSITIONS.getURN(), IndyMessageTypes.GET_REQUEST, BenchmarkData.STUDENT_DID).get();
+        credentialRequest = codec.encryptMessage(SimulatedLedger.empty(CredentialRequest.class), IndyMessageTypes.CREDENTIAL_REQUEST, BenchmarkData.STUDENT_DID).get();
+        // Listing creates the student's applications. The first proof fulfills one of them, later proofs match the
+        // positions and are rejected in the background for lack of a pending application; the receipt is measured
+        agentService.processMessage(exchangePositionsRequest).get();
+        proof = codec.encryptMessage(SimulatedLedger.proofFor(BenchmarkData.proofRequestTemplate()), IndyMessageTypes.PROOF, BenchmarkData.STUDENT_DID).get();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MessageEnvelope getCredentialOffers() throws Exception {
+        return agentService.processMessage(credentialOffersRequest).get();
+    }
+
+    @Benchmark
+    public MessageEnvelope getExchangePositions() throws Exception {
+        return agentService.processMessage(exchangePositionsRequest).get();
+    }
+
+    @Benchmark
+    public MessageEnvelope credentialRequest() throws Exception {
+        return agentService.processMessage(credentialRequest).get();
+    }
+
+    @Benchmark
+    public MessageEnvelope proof() throws Exception {
+        return agentService.processMessage(proof).get();
+    }
+}
@@ -0,0 +1,67 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.config.EnvelopeFormat;
+import nl.quintor.studybits.indy.SimulatedEnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.messages.AuthcryptableExchangePositions;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and serializing the envelopes of /agent/message, for an EXCHANGE_POSITIONS listing of growing size: through
+ * a String as quindy does, and from and to a stream as {@link EnvelopeFormat} does for the agent endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeBenchmark {
+    @Param({"1", "10", "100"})
+    private int exchangePositions;
+
+    private MessageEnvelope<AuthcryptableExchangePositions> envelope;
+    private String envelopeJson;
+    private byte[] envelopeBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        StudyBitsMessageTypes.init();
+        IndyMessageTypes.init();
+
+        envelope = new SimulatedEnvelopeCodec(0)
+                .encryptMessage(BenchmarkData.exchangePositions(exchangePositions), StudyBitsMessageTypes.EXCHANGE_POSITIONS, BenchmarkData.STUDENT_DID)
+                .get();
+        envelopeJson = envelope.toJSON();
+        envelopeBytes = envelopeJson.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public MessageEnvelope parseFromString() throws Exception {
+        return MessageEnvelope.parseFromString(envelopeJson);
+    }
+
+    @Benchmark
+    public String toJSON() throws Exception {
+        return envelope.toJSON();
+    }
+
+    @Benchmark
+    public MessageEnvelope readFromStream() throws Exception {
+        return EnvelopeFormat.JSON.read(new ByteArrayInputStream(envelopeBytes));
+    }
+
+    @Benchmark
+    public int writeToStream() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(envelopeBytes.length);
+        EnvelopeFormat.JSON.write(envelope, outputStream);
+        return outputStream.size();
+    }
+}
@@ -0,0 +1,105 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.config.EnvelopeFormat;
+import nl.quintor.studybits.indy.SimulatedEnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding and decoding an EXCHANGE_POSITIONS envelope in each format /agent/message accepts, with and without gzip.
+ * The encoded size of each combination is reported as the {@code encodedBytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeEncodingBenchmark {
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"1", "100"})
+    private int exchangePositions;
+
+    private MessageEnvelope envelope;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        StudyBitsMessageTypes.init();
+        IndyMessageTypes.init();
+
+        envelope = new SimulatedEnvelopeCodec(0)
+                .encryptMessage(BenchmarkData.exchangePositions(exchangePositions), StudyBitsMessageTypes.EXCHANGE_POSITIONS, BenchmarkData.STUDENT_DID)
+                .get();
+        encoded = write();
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize encodedSize) throws Exception {
+        byte[] bytes = write();
+        encodedSize.record(bytes.length);
+        return bytes;
+    }
+
+    @Benchmark
+    public MessageEnvelope decode(EncodedSize encodedSize) throws Exception {
+        encodedSize.record(encoded.length);
+        try (InputStream inputStream = gzip ? new GZIPInputStream(new ByteArrayInputStream(encoded)) : new ByteArrayInputStream(encoded)) {
+            return envelopeFormat().read(inputStream);
+        }
+    }
+
+    private byte[] write() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream outputStream = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            envelopeFormat().write(envelope, outputStream);
+        }
+        return bytes.toByteArray();
+    }
+
+    private EnvelopeFormat envelopeFormat() {
+        return EnvelopeFormat.valueOf(format.toUpperCase());
+    }
+
+    /**
+     * The encoded size in bytes, written to the results next to the timings. JMH sums event counters over the
+     * measurement iterations, so the size is only counted in the first one.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long encodedBytes;
+        private boolean measuring;
+        private boolean recorded;
+
+        @Setup(Level.Iteration)
+        public void startIteration(IterationParams iterationParams) {
+            encodedBytes = 0;
+            measuring = iterationParams.getType() == IterationType.MEASUREMENT;
+        }
+
+        void record(int bytes) {
+            if (measuring && !recorded) {
+                encodedBytes = bytes;
+                recorded = true;
+            }
+        }
+    }
+}
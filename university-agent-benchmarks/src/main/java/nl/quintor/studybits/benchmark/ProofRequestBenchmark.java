@@ -0,0 +1,49 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.entity.ExchangePosition;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import nl.quintor.studybits.service.ProofRequestTemplateCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producing the proof request for an exchange position: parsing the stored template and setting a nonce on every
+ * request, against copying the template that {@link ProofRequestTemplateCatalog} parsed once with a new random nonce,
+ * as for a new exchange application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProofRequestBenchmark {
+    private ExchangePosition exchangePosition;
+    private ProofRequestTemplateCatalog proofRequestTemplateCatalog;
+
+    @Setup
+    public void setUp() throws Exception {
+        exchangePosition = BenchmarkData.exchangePosition(1);
+        proofRequestTemplateCatalog = new ProofRequestTemplateCatalog();
+    }
+
+    @Benchmark
+    public ProofRequest parseTemplate() throws Exception {
+        ProofRequest proofRequest = JSONUtil.mapper.readValue(exchangePosition.getProofRequestTemplate(), ProofRequest.class);
+        proofRequest.setNonce(Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE));
+        return proofRequest;
+    }
+
+    @Benchmark
+    public ProofRequest copyFromCatalog() {
+        return proofRequestTemplateCatalog.createProofRequest(exchangePosition, proofRequestTemplateCatalog.createNonce());
+    }
+
+    @Benchmark
+    public String copyFromCatalogToJSON() throws Exception {
+        return proofRequestTemplateCatalog.createProofRequest(exchangePosition, proofRequestTemplateCatalog.createNonce()).toJSON();
+    }
+}
@@ -0,0 +1,61 @@
+package nl.quintor.studybits.benchmark;
+
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.repository.StudentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the student of an incoming message by DID, which every handler does, on H2 with a growing student table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StudentRepositoryBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int students;
+
+    private ConfigurableApplicationContext context;
+    private StudentRepository studentRepository;
+    private String[] studentDids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        studentRepository = context.getBean(StudentRepository.class);
+
+        // Plain JDBC, inserting a million students through JPA would take longer than the benchmark itself
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        studentDids = new String[students];
+        for (int i = 0; i < students; i++) {
+            studentDids[i] = String.format("SYqJSzcfsJ%012d", i);
+            batch.add(new Object[]{i + 1, Integer.toString(i), studentDids[i], "Lisa", "Veren", false});
+            if (batch.size() == INSERT_BATCH_SIZE || i == students - 1) {
+                jdbcTemplate.batchUpdate("insert into student (id, student_id, student_did, first_name, last_name, proven) values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Student getStudentByStudentDid() {
+        return studentRepository.getStudentByStudentDid(studentDids[ThreadLocalRandom.current().nextInt(students)]);
+    }
+}
@@ -0,0 +1,101 @@
+package nl.quintor.studybits.loadtest;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls the REST endpoints of one university agent.
+ */
+public class AgentClient {
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+
+    public AgentClient(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+    }
+
+    public CompletableFuture<MessageEnvelope> login(MessageEnvelope messageEnvelope, String username, String password) {
+        String credentials = Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        return postEnvelope("/agent/login", messageEnvelope, "Basic " + credentials);
+    }
+
+    /**
+     * Posts an envelope to /agent/message, completing with the response envelope or null when the agent sent none.
+     */
+    public CompletableFuture<MessageEnvelope> message(MessageEnvelope messageEnvelope) {
+        return postEnvelope("/agent/message", messageEnvelope, null);
+    }
+
+    public CompletableFuture<String> post(String path) {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    public CompletableFuture<String> post(String path, String json) {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    public CompletableFuture<String> get(String path) {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private CompletableFuture<MessageEnvelope> postEnvelope(String path, MessageEnvelope messageEnvelope, String authorization) {
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(messageEnvelope.toJSON()));
+        }
+        catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+
+        return send(request).thenApply(body -> {
+            try {
+                return body.isEmpty() ? null : JSONUtil.mapper.readValue(body, MessageEnvelope.class);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException("Invalid envelope in response from " + path, e);
+            }
+        });
+    }
+
+    private CompletableFuture<String> send(HttpRequest.Builder request) {
+        return httpClient.sendAsync(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new AgentResponseException(response.statusCode(), response.uri().getPath());
+                    }
+                    return response.body();
+                });
+    }
+
+    public static class AgentResponseException extends RuntimeException {
+        private final int statusCode;
+
+        AgentResponseException(int statusCode, String path) {
+            super("HTTP " + statusCode + " from " + path);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package nl.quintor.studybits.loadtest;
+
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.IndyEnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.IndyPool;
+import nl.quintor.studybits.indy.wrapper.IndyWallet;
+import nl.quintor.studybits.indy.wrapper.Prover;
+import nl.quintor.studybits.indy.wrapper.dto.*;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelopeCodec;
+
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A student wallet on the pool, doing what the student does in ScenarioIT.
+ */
+public class IndyStudentWallet implements StudentWallet {
+    private final IndyWallet wallet;
+    private final Prover prover;
+    private final EnvelopeCodec codec;
+
+    private IndyStudentWallet(IndyWallet wallet) throws Exception {
+        this.wallet = wallet;
+        this.prover = new Prover(wallet, "master_secret_name");
+        this.codec = new IndyEnvelopeCodec(new MessageEnvelopeCodec(wallet));
+        prover.init();
+    }
+
+    public static IndyStudentWallet create(IndyPool indyPool, String name) throws Exception {
+        String seed = String.format("%32.32s", name).replace(' ', '0');
+        return new IndyStudentWallet(IndyWallet.create(indyPool, name + System.currentTimeMillis(), seed));
+    }
+
+    @Override
+    public EnvelopeCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public CompletableFuture<ConnectionRequest> createConnectionRequest() {
+        return call(wallet::createConnectionRequest);
+    }
+
+    @Override
+    public CompletableFuture<String> acceptConnectionResponse(ConnectionRequest connectionRequest, ConnectionResponse connectionResponse, String universityDid) {
+        return call(() -> wallet.acceptConnectionResponse(connectionResponse, universityDid))
+                .thenApply(ignored -> connectionResponse.getDid());
+    }
+
+    @Override
+    public CompletableFuture<CredentialRequest> createCredentialRequest(String did, CredentialOffer credentialOffer) {
+        return call(() -> prover.createCredentialRequest(did, credentialOffer));
+    }
+
+    @Override
+    public CompletableFuture<Void> storeCredential(CredentialWithRequest credentialWithRequest) {
+        return call(() -> prover.storeCredential(credentialWithRequest))
+                .thenApply(ignored -> null);
+    }
+
+    @Override
+    public CompletableFuture<Proof> fulfillProofRequest(ProofRequest proofRequest) {
+        return call(() -> prover.fulfillProofRequest(proofRequest, new HashMap<>()));
+    }
+
+    private static <T> CompletableFuture<T> call(Callable<CompletableFuture<T>> operation) {
+        try {
+            return operation.call();
+        }
+        catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
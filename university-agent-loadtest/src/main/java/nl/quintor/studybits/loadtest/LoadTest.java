@@ -0,0 +1,141 @@
+package nl.quintor.studybits.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.controller.StudentSeedController;
+import nl.quintor.studybits.indy.wrapper.IndyPool;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import nl.quintor.studybits.indy.wrapper.util.PoolUtils;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import org.hyperledger.indy.sdk.pool.Pool;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs the ScenarioIT flow for many students at once against running agents, and reports latency percentiles,
+ * throughput and errors per step. See {@link LoadTestConfig} for the options.
+ */
+@Slf4j
+public class LoadTest {
+    private final LoadTestConfig config;
+    private final AgentClient issuer;
+    private final AgentClient verifier;
+    private final LoadTestResults results = new LoadTestResults();
+    // Creating wallets blocks on libindy, keep it off the HTTP client threads
+    private final ExecutorService walletExecutor;
+    private IndyPool indyPool;
+
+    public LoadTest(LoadTestConfig config) {
+        this.config = config;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Math.max(4, config.getConcurrency() / 4)))
+                .build();
+        this.issuer = new AgentClient(httpClient, config.getIssuerUrl());
+        this.verifier = config.hasSeparateVerifier() ? new AgentClient(httpClient, config.getVerifierUrl()) : issuer;
+        this.walletExecutor = Executors.newFixedThreadPool(config.getConcurrency());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        LoadTest loadTest = new LoadTest(config);
+
+        LoadTestResults.Summary summary = loadTest.run();
+        Path reportDir = LoadTestReport.write(summary, config.getReportDir());
+
+        log.info("{} of {} students completed in {} s, report written to {}", summary.getFlowsCompleted(),
+                summary.getFlowsStarted(), String.format("%.1f", summary.getElapsedSeconds()), reportDir.toAbsolutePath());
+        System.exit(0);
+    }
+
+    public LoadTestResults.Summary run() throws Exception {
+        StudyBitsMessageTypes.init();
+        IndyMessageTypes.init();
+        prepare();
+
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(config.getRampUpSeconds());
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        Semaphore running = new Semaphore(config.getConcurrency());
+        List<CompletableFuture<Void>> flows = new ArrayList<>(config.getStudents());
+
+        for (int i = 0; i < config.getStudents(); i++) {
+            // The first flows are spread over the ramp-up period, after that a new flow starts whenever one finishes
+            if (i < config.getConcurrency()) {
+                long startAt = start + rampUpNanos * i / config.getConcurrency();
+                TimeUnit.NANOSECONDS.sleep(startAt - System.nanoTime());
+            }
+            running.acquire();
+            if (System.nanoTime() > deadline) {
+                log.info("Duration of {} s reached after starting {} students", config.getDurationSeconds(), i);
+                break;
+            }
+
+            String studentId = config.getStudentPrefix() + i;
+            results.flowStarted();
+            flows.add(CompletableFuture.supplyAsync(() -> createWallet(studentId), walletExecutor)
+                    .thenCompose(wallet -> new StudentFlow(config, studentId, wallet, issuer, verifier, results).run())
+                    .whenComplete((ignored, e) -> {
+                        running.release();
+                        results.flowFinished(e == null);
+                        if (e != null) {
+                            log.debug("Flow of {} failed", studentId, e);
+                        }
+                    }));
+        }
+
+        CompletableFuture.allOf(flows.toArray(new CompletableFuture[0]))
+                .handle((ignored, e) -> null)
+                .join();
+        walletExecutor.shutdown();
+
+        return results.summarize(config, System.nanoTime() - start);
+    }
+
+    /**
+     * Seeds the synthetic students at the issuer, after optionally resetting the agents and creating the credential
+     * definition and exchange position.
+     */
+    private void prepare() throws Exception {
+        if (config.isReset()) {
+            issuer.post("/bootstrap/reset").get();
+            if (config.hasSeparateVerifier()) {
+                verifier.post("/bootstrap/reset").get();
+            }
+        }
+
+        if (config.getBootstrapSchemaId() != null) {
+            issuer.post("/bootstrap/credential_definition/" + config.getBootstrapSchemaId()).get();
+            String credentialDefinitionId = issuer.get("/bootstrap/credential_definition").get();
+            verifier.post("/bootstrap/exchange_position/" + credentialDefinitionId).get();
+        }
+
+        String seedRequest = JSONUtil.mapper.writeValueAsString(new StudentSeedController.SeedStudentsRequest(config.getStudentPrefix(), config.getPassword()));
+        String created = issuer.post("/bootstrap/students/" + config.getStudents(), seedRequest).get();
+        log.info("Seeded {} new students at {}", created, config.getIssuerUrl());
+
+        if (!config.isSimulated()) {
+            // Like ScenarioIT, wait until the mobile-test profile has put the issuer on the ledger
+            while (!Boolean.parseBoolean(issuer.get("/bootstrap/ready").get())) {
+                TimeUnit.SECONDS.sleep(1);
+            }
+            Pool.setProtocolVersion(PoolUtils.PROTOCOL_VERSION).get();
+            indyPool = new IndyPool(PoolUtils.createPoolLedgerConfig(null, "loadTestPool" + System.currentTimeMillis()));
+        }
+    }
+
+    private StudentWallet createWallet(String studentId) {
+        if (config.isSimulated()) {
+            return new SimulatedStudentWallet();
+        }
+        try {
+            return IndyStudentWallet.create(indyPool, studentId);
+        }
+        catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
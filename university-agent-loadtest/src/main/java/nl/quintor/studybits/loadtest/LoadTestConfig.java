@@ -0,0 +1,77 @@
+package nl.quintor.studybits.loadtest;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given on the command line as {@code --name=value}.
+ */
+@Data
+public class LoadTestConfig {
+    /**
+     * {@code indy} uses real student wallets on the pool, {@code simulated} talks to an agent running the
+     * simulated-ledger profile.
+     */
+    private String mode = "simulated";
+    private String issuerUrl = "http://localhost:8080";
+    private String verifierUrl = "http://localhost:8081";
+    private String issuerDid = "SYqJSzcfsJMhSt7qjcQ8CC";
+    private String verifierDid = "Vumgc4B8hFq7n5VNAnfDAL";
+    private int students = 100;
+    private int concurrency = 10;
+    private int rampUpSeconds = 10;
+    private int durationSeconds = 300;
+    private String studentPrefix = "loadtest-";
+    private String password = "test1234";
+    /**
+     * Reset the agents with /bootstrap/reset before seeding the students.
+     */
+    private boolean reset = false;
+    /**
+     * When set, defines a credential for this schema at the issuer and an exchange position for it at the verifier.
+     */
+    private String bootstrapSchemaId;
+    private String reportDir = "target/loadtest";
+
+    public boolean isSimulated() {
+        return "simulated".equals(mode);
+    }
+
+    public boolean hasSeparateVerifier() {
+        return !issuerUrl.equals(verifierUrl);
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String[] option = arg.substring(2).split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+
+        LoadTestConfig config = new LoadTestConfig();
+        config.setMode(options.getOrDefault("mode", config.getMode()));
+        config.setIssuerUrl(options.getOrDefault("issuer-url", config.getIssuerUrl()));
+        config.setVerifierUrl(options.getOrDefault("verifier-url", config.getVerifierUrl()));
+        config.setIssuerDid(options.getOrDefault("issuer-did", config.getIssuerDid()));
+        config.setVerifierDid(options.getOrDefault("verifier-did", config.getVerifierDid()));
+        config.setStudents(Integer.parseInt(options.getOrDefault("students", Integer.toString(config.getStudents()))));
+        config.setConcurrency(Integer.parseInt(options.getOrDefault("concurrency", Integer.toString(config.getConcurrency()))));
+        config.setRampUpSeconds(Integer.parseInt(options.getOrDefault("ramp-up", Integer.toString(config.getRampUpSeconds()))));
+        config.setDurationSeconds(Integer.parseInt(options.getOrDefault("duration", Integer.toString(config.getDurationSeconds()))));
+        config.setStudentPrefix(options.getOrDefault("student-prefix", config.getStudentPrefix()));
+        config.setPassword(options.getOrDefault("password", config.getPassword()));
+        config.setReset(Boolean.parseBoolean(options.getOrDefault("reset", Boolean.toString(config.isReset()))));
+        config.setBootstrapSchemaId(options.get("bootstrap-schema-id"));
+        config.setReportDir(options.getOrDefault("report-dir", config.getReportDir()));
+
+        if (!config.isSimulated() && !"indy".equals(config.getMode())) {
+            throw new IllegalArgumentException("Unknown mode " + config.getMode() + ", expected indy or simulated");
+        }
+        return config;
+    }
+}
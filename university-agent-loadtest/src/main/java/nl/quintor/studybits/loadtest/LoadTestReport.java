@@ -0,0 +1,60 @@
+package nl.quintor.studybits.loadtest;
+
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes the summary of a run as report.json, for comparing runs, and report.html, for reading.
+ */
+public class LoadTestReport {
+    private LoadTestReport() {
+    }
+
+    public static Path write(LoadTestResults.Summary summary, String reportDir) throws IOException {
+        Path directory = Paths.get(reportDir);
+        Files.createDirectories(directory);
+
+        JSONUtil.mapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve("report.json").toFile(), summary);
+        Files.write(directory.resolve("report.html"), html(summary).getBytes(StandardCharsets.UTF_8));
+        return directory;
+    }
+
+    private static String html(LoadTestResults.Summary summary) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>StudyBits load test</title>\n")
+                .append("<style>body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}th:first-child,td:first-child{text-align:left}</style>\n")
+                .append("</head>\n<body>\n<h1>StudyBits load test</h1>\n");
+
+        html.append(String.format("<p>%d students started, %d completed, %d failed in %.1f s (%.2f flows/s)</p>%n",
+                summary.getFlowsStarted(), summary.getFlowsCompleted(), summary.getFlowsFailed(),
+                summary.getElapsedSeconds(), summary.getFlowsPerSecond()));
+
+        html.append("<table>\n<tr><th>Step</th><th>Requests</th><th>Req/s</th><th>Errors</th><th>Error rate</th><th>Mean (ms)</th>");
+        if (!summary.getSteps().isEmpty()) {
+            summary.getSteps().get(0).getPercentiles().keySet().forEach(percentile -> html.append("<th>").append(percentile).append(" (ms)</th>"));
+        }
+        html.append("<th>Max (ms)</th><th>Errors by type</th></tr>\n");
+
+        for (LoadTestResults.StepSummary step : summary.getSteps()) {
+            html.append(String.format("<tr><td>%s</td><td>%d</td><td>%.2f</td><td>%d</td><td>%.2f%%</td><td>%.1f</td>",
+                    step.getName(), step.getRequests(), step.getRequestsPerSecond(), step.getErrors(), step.getErrorRate() * 100, step.getMean()));
+            step.getPercentiles().values().forEach(value -> html.append(String.format("<td>%.1f</td>", value)));
+            html.append(String.format("<td>%.1f</td><td>%s</td></tr>%n", step.getMax(), escape(step.getErrorsByType().toString())));
+        }
+        html.append("</table>\n");
+
+        html.append("<h2>Configuration</h2>\n<pre>")
+                .append(escape(JSONUtil.mapper.writerWithDefaultPrettyPrinter().writeValueAsString(summary.getConfig())))
+                .append("</pre>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,131 @@
+package nl.quintor.studybits.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the latency and outcome of every step of every student flow, and summarizes them for the report.
+ */
+public class LoadTestResults {
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final Map<String, StepResults> steps = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final AtomicLong flowsStarted = new AtomicLong();
+    private final AtomicLong flowsCompleted = new AtomicLong();
+    private final AtomicLong flowsFailed = new AtomicLong();
+
+    public void recordSuccess(String step, long nanos) {
+        stepResults(step).latencies.add(nanos);
+    }
+
+    public void recordFailure(String step, long nanos, Throwable throwable) {
+        StepResults stepResults = stepResults(step);
+        stepResults.latencies.add(nanos);
+        stepResults.errors.computeIfAbsent(describe(throwable), key -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void flowStarted() {
+        flowsStarted.incrementAndGet();
+    }
+
+    public void flowFinished(boolean completed) {
+        (completed ? flowsCompleted : flowsFailed).incrementAndGet();
+    }
+
+    public Summary summarize(LoadTestConfig config, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        List<StepSummary> stepSummaries = new ArrayList<>();
+
+        synchronized (steps) {
+            steps.forEach((name, stepResults) -> {
+                long[] latencies = stepResults.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+                Map<String, Long> errors = new TreeMap<>();
+                stepResults.errors.forEach((error, count) -> errors.put(error, count.get()));
+                long errorCount = errors.values().stream().mapToLong(Long::longValue).sum();
+
+                Map<String, Double> percentiles = new LinkedHashMap<>();
+                for (double percentile : PERCENTILES) {
+                    percentiles.put("p" + (int) percentile, millis(percentile(latencies, percentile)));
+                }
+
+                stepSummaries.add(new StepSummary(name, latencies.length, errorCount,
+                        latencies.length == 0 ? 0 : (double) errorCount / latencies.length,
+                        latencies.length / elapsedSeconds,
+                        latencies.length == 0 ? 0 : millis((long) Arrays.stream(latencies).average().orElse(0)),
+                        percentiles,
+                        latencies.length == 0 ? 0 : millis(latencies[latencies.length - 1]),
+                        errors));
+            });
+        }
+
+        return new Summary(config, elapsedSeconds, flowsStarted.get(), flowsCompleted.get(), flowsFailed.get(),
+                flowsCompleted.get() / elapsedSeconds, stepSummaries);
+    }
+
+    private StepResults stepResults(String step) {
+        synchronized (steps) {
+            return steps.computeIfAbsent(step, key -> new StepResults());
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static String describe(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof AgentClient.AgentResponseException) {
+            return "HTTP " + ((AgentClient.AgentResponseException) cause).getStatusCode();
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    private static class StepResults {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Summary {
+        private LoadTestConfig config;
+        private double elapsedSeconds;
+        private long flowsStarted;
+        private long flowsCompleted;
+        private long flowsFailed;
+        private double flowsPerSecond;
+        private List<StepSummary> steps;
+    }
+
+    /**
+     * Latencies are in milliseconds, measured from sending the request until the response is received.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class StepSummary {
+        private String name;
+        private long requests;
+        private long errors;
+        private double errorRate;
+        private double requestsPerSecond;
+        private double mean;
+        private Map<String, Double> percentiles;
+        private double max;
+        private Map<String, Long> errorsByType;
+    }
+}
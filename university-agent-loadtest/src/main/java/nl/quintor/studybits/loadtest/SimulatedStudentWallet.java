@@ -0,0 +1,69 @@
+package nl.quintor.studybits.loadtest;
+
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.SimulatedEnvelopeCodec;
+import nl.quintor.studybits.indy.SimulatedLedger;
+import nl.quintor.studybits.indy.wrapper.dto.*;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A student talking to an agent that runs the simulated-ledger profile. Nothing is encrypted or proven, the student
+ * only needs a DID of its own and payloads the agent can parse.
+ */
+public class SimulatedStudentWallet implements StudentWallet {
+    private static final String BASE58 = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+
+    private final EnvelopeCodec codec = new SimulatedEnvelopeCodec(0);
+
+    @Override
+    public EnvelopeCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public CompletableFuture<ConnectionRequest> createConnectionRequest() {
+        return call(() -> JSONUtil.mapper.convertValue(Collections.singletonMap("did", createDid()), ConnectionRequest.class));
+    }
+
+    @Override
+    public CompletableFuture<String> acceptConnectionResponse(ConnectionRequest connectionRequest, ConnectionResponse connectionResponse, String universityDid) {
+        return CompletableFuture.completedFuture(connectionRequest.getDid());
+    }
+
+    @Override
+    public CompletableFuture<CredentialRequest> createCredentialRequest(String did, CredentialOffer credentialOffer) {
+        return call(() -> SimulatedLedger.empty(CredentialRequest.class));
+    }
+
+    @Override
+    public CompletableFuture<Void> storeCredential(CredentialWithRequest credentialWithRequest) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Proof> fulfillProofRequest(ProofRequest proofRequest) {
+        return call(() -> SimulatedLedger.proofFor(proofRequest));
+    }
+
+    private static String createDid() {
+        StringBuilder did = new StringBuilder(22);
+        for (int i = 0; i < 22; i++) {
+            did.append(BASE58.charAt(ThreadLocalRandom.current().nextInt(BASE58.length())));
+        }
+        return did.toString();
+    }
+
+    private static <T> CompletableFuture<T> call(Callable<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.call());
+        }
+        catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package nl.quintor.studybits.loadtest;
+
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.dto.*;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.messages.AuthcryptableExchangePositions;
+import nl.quintor.studybits.messages.AuthcryptableProofStatuses;
+import nl.quintor.studybits.messages.ProofStatus;
+import nl.quintor.studybits.service.ExchangePositionService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.*;
+import static nl.quintor.studybits.messages.StudyBitsMessageTypes.EXCHANGE_POSITIONS;
+import static nl.quintor.studybits.messages.StudyBitsMessageTypes.PROOF_STATUSES;
+
+/**
+ * One student going through ScenarioIT: log in at the issuer, get the credential offer and the credential, connect to
+ * the verifier, apply for an exchange position with a proof and poll until it is verified. The flow stops at the
+ * first failing step.
+ */
+public class StudentFlow {
+    private static final int POLL_ATTEMPTS = 120;
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final LoadTestConfig config;
+    private final String studentId;
+    private final StudentWallet wallet;
+    private final EnvelopeCodec codec;
+    private final AgentClient issuer;
+    private final AgentClient verifier;
+    private final LoadTestResults results;
+
+    public StudentFlow(LoadTestConfig config, String studentId, StudentWallet wallet, AgentClient issuer, AgentClient verifier, LoadTestResults results) {
+        this.config = config;
+        this.studentId = studentId;
+        this.wallet = wallet;
+        this.codec = wallet.getCodec();
+        this.issuer = issuer;
+        this.verifier = verifier;
+        this.results = results;
+    }
+
+    public CompletableFuture<Void> run() {
+        return connect("login", issuer, config.getIssuerDid(), studentId, config.getPassword())
+                .thenCompose(issuerDid -> obtainCredential(issuerDid).thenApply(ignored -> issuerDid))
+                .thenCompose(issuerDid -> config.hasSeparateVerifier()
+                        // Like Lisa registering at Gent: without credentials the verifier creates a new student
+                        ? connect("register", verifier, config.getVerifierDid(), "", "")
+                        : CompletableFuture.completedFuture(issuerDid))
+                .thenCompose(this::apply);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<String> connect(String step, AgentClient agent, String universityDid, String username, String password) {
+        return wallet.createConnectionRequest()
+                .thenCompose(connectionRequest -> codec.encryptMessage(connectionRequest, CONNECTION_REQUEST, universityDid)
+                        .thenCompose(envelope -> step(step, () -> agent.login(envelope, username, password)))
+                        .thenCompose(envelope -> codec.decryptMessage((MessageEnvelope<ConnectionResponse>) envelope))
+                        .thenCompose(connectionResponse -> wallet.acceptConnectionResponse(connectionRequest, connectionResponse, universityDid)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Void> obtainCredential(String did) {
+        return getRequest("credentialOffers", issuer, CREDENTIAL_OFFERS.getURN(), did)
+                .thenCompose(envelope -> codec.decryptMessage((MessageEnvelope<CredentialOfferList>) envelope))
+                .thenCompose(credentialOfferList -> {
+                    List<CredentialOffer> credentialOffers = credentialOfferList.getCredentialOffers();
+                    if (credentialOffers == null || credentialOffers.isEmpty()) {
+                        throw new IllegalStateException("No credential offer for " + studentId);
+                    }
+                    return wallet.createCredentialRequest(did, credentialOffers.get(0));
+                })
+                .thenCompose(credentialRequest -> codec.encryptMessage(credentialRequest, CREDENTIAL_REQUEST, did))
+                .thenCompose(envelope -> step("credentialRequest", () -> issuer.message(envelope)))
+                .thenCompose(envelope -> codec.decryptMessage((MessageEnvelope<CredentialWithRequest>) envelope))
+                .thenCompose(wallet::storeCredential);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Void> apply(String did) {
+        return getRequest("exchangePositions", verifier, EXCHANGE_POSITIONS.getURN(), did)
+                .thenCompose(envelope -> codec.decryptMessage((MessageEnvelope<AuthcryptableExchangePositions>) envelope))
+                .thenCompose(exchangePositions -> {
+                    List<ExchangePositionService.ExchangePositionDto> positions = exchangePositions.getExchangePositions();
+                    if (positions == null || positions.isEmpty()) {
+                        throw new IllegalStateException("No exchange position to apply for");
+                    }
+                    return wallet.fulfillProofRequest(positions.get(positions.size() - 1).getProofRequest());
+                })
+                .thenCompose(proof -> codec.encryptMessage(proof, PROOF, did))
+                .thenCompose(envelope -> step("proof", () -> verifier.message(envelope)))
+                .thenCompose(envelope -> codec.decryptMessage((MessageEnvelope<ProofStatus>) envelope))
+                .thenCompose(receipt -> awaitVerification(did, receipt.getTrackingId(), POLL_ATTEMPTS));
+    }
+
+    /**
+     * Polls PROOF_STATUSES until the proof is no longer pending, failing the flow unless it was accepted.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Void> awaitVerification(String did, String trackingId, int attemptsLeft) {
+        if (attemptsLeft == 0) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Proof " + trackingId + " still pending"));
+        }
+
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> getRequest("proofStatuses", verifier, PROOF_STATUSES.getURN(), did))
+                .thenCompose(envelope -> codec.decryptMessage((MessageEnvelope<AuthcryptableProofStatuses>) envelope))
+                .thenCompose(proofStatuses -> {
+                    ProofStatus.Status status = proofStatuses.getProofStatuses().stream()
+                            .filter(proofStatus -> proofStatus.getTrackingId().equals(trackingId))
+                            .map(ProofStatus::getStatus)
+                            .findFirst()
+                            .orElse(ProofStatus.Status.FAILED);
+                    if (status == ProofStatus.Status.PENDING) {
+                        return awaitVerification(did, trackingId, attemptsLeft - 1);
+                    }
+                    if (status != ProofStatus.Status.ACCEPTED) {
+                        throw new IllegalStateException("Proof " + trackingId + " was " + status);
+                    }
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    private CompletableFuture<MessageEnvelope> getRequest(String step, AgentClient agent, String requestedURN, String did) {
+        return codec.encryptMessage(requestedURN, GET_REQUEST, did)
+                .thenCompose(envelope -> step(step, () -> agent.message(envelope)));
+    }
+
+    private <T> CompletableFuture<T> step(String step, Supplier<CompletableFuture<T>> request) {
+        long start = System.nanoTime();
+        return request.get().whenComplete((result, e) -> {
+            if (e == null) {
+                results.recordSuccess(step, System.nanoTime() - start);
+            }
+            else {
+                results.recordFailure(step, System.nanoTime() - start, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package nl.quintor.studybits.loadtest;
+
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.dto.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The student side of the flow in ScenarioIT: the wallet that connects to universities, requests and stores
+ * credentials and proves exchange position requirements.
+ */
+public interface StudentWallet {
+    EnvelopeCodec getCodec();
+
+    CompletableFuture<ConnectionRequest> createConnectionRequest();
+
+    /**
+     * Accepts the university's answer to a connection request, returning the DID to use towards that university.
+     */
+    CompletableFuture<String> acceptConnectionResponse(ConnectionRequest connectionRequest, ConnectionResponse connectionResponse, String universityDid);
+
+    CompletableFuture<CredentialRequest> createCredentialRequest(String did, CredentialOffer credentialOffer);
+
+    CompletableFuture<Void> storeCredential(CredentialWithRequest credentialWithRequest);
+
+    CompletableFuture<Proof> fulfillProofRequest(ProofRequest proofRequest);
+}
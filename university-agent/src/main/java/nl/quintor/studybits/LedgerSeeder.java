@@ -1,6 +1,7 @@
 package nl.quintor.studybits;
 
 import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.LedgerState;
 import nl.quintor.studybits.indy.wrapper.*;
 import nl.quintor.studybits.indy.wrapper.dto.*;
 import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
@@ -9,13 +10,15 @@ import nl.quintor.studybits.indy.wrapper.message.MessageEnvelopeCodec;
 import nl.quintor.studybits.indy.wrapper.util.PoolUtils;
 import nl.quintor.studybits.repository.StudentRepository;
 import nl.quintor.studybits.service.CredentialDefinitionService;
+import nl.quintor.studybits.service.LedgerStateService;
 import org.apache.commons.lang3.StringUtils;
 import org.hyperledger.indy.sdk.IndyException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
@@ -38,33 +41,70 @@ public class LedgerSeeder {
     @Autowired
     private CredentialDefinitionService credentialDefinitionService;
 
+    @Autowired
+    private LedgerStateService ledgerStateService;
+
     @Value("${nl.quintor.studybits.university.name}")
     private String universityName;
 
-    private boolean done = false;
+    private volatile boolean done = false;
 
+    /**
+     * Seeds on a background thread once the agent is started, so the HTTP port doesn't wait for the ledger.
+     * {@code /bootstrap/ready} tells when it's done.
+     */
     @EventListener
-    public void seed(ContextRefreshedEvent event) throws InterruptedException, ExecutionException, IndyException, IOException {
+    public void seedInBackground(ApplicationReadyEvent event) {
+        new SimpleAsyncTaskExecutor("ledger-seeder-").execute(() -> {
+            try {
+                seed();
+            }
+            catch (Exception e) {
+                log.error("Seeding the ledger failed", e);
+            }
+        });
+    }
+
+    /**
+     * Onboards the university and, for Groningen, creates the transcript schema and credential definition. Each step
+     * is recorded in the {@link LedgerState} as soon as it's done and skipped on a later start, so a restart writes
+     * nothing to the ledger that was written before.
+     */
+    public void seed() throws InterruptedException, ExecutionException, IndyException, IOException {
         if (needsSeeding()) {
+            LedgerState ledgerState = ledgerStateService.getLedgerState();
+            boolean issuesTranscripts = universityName.equals("Rijksuniversiteit Groningen");
+            if (ledgerState.isOnboarded() && (!issuesTranscripts || credentialDefinitionService.getCredentialDefinitionId() != null)) {
+                log.info("Ledger was seeded before, using credential definition {}", credentialDefinitionService.getCredentialDefinitionId());
+                done = true;
+                return;
+            }
+
             Pool.setProtocolVersion(PoolUtils.PROTOCOL_VERSION).get();
             String poolName = PoolUtils.createPoolLedgerConfig(null, "testPool" + System.currentTimeMillis());
             IndyPool indyPool = new IndyPool(poolName);
             IndyWallet stewardWallet = IndyWallet.create(indyPool, "steward" + System.currentTimeMillis(), "000000000000000000000000Steward1");
             TrustAnchor steward = new TrustAnchor(stewardWallet);
 
-            Issuer university = new Issuer(IndyWallet.create(indyPool, "university" + System.currentTimeMillis(),
-                    StringUtils.leftPad(universityName.replace(" ", ""), 32, '0')));
-
-
-            onboardIssuer(steward, university);
-
-            log.info("Initialized university with did {}", university.getMainDid());
+            if (!ledgerState.isOnboarded()) {
+                Issuer university = new Issuer(IndyWallet.create(indyPool, "university" + System.currentTimeMillis(),
+                        StringUtils.leftPad(universityName.replace(" ", ""), 32, '0')));
 
+                onboardIssuer(steward, university);
+                ledgerStateService.updateLedgerState(state -> state.setOnboarded(true));
 
+                log.info("Initialized university with did {}", university.getMainDid());
+            }
 
-            Issuer stewardIssuer = new Issuer(stewardWallet);
-            if (universityName.equals("Rijksuniversiteit Groningen")) {
-                String schemaId = stewardIssuer.createAndSendSchema("Transcript", "1.0", "first_name", "last_name", "degree", "status", "average").get();
+            if (issuesTranscripts) {
+                String schemaId = ledgerState.getSchemaId();
+                if (schemaId == null) {
+                    Issuer stewardIssuer = new Issuer(stewardWallet);
+                    String newSchemaId = stewardIssuer.createAndSendSchema("Transcript", "1.0", "first_name", "last_name", "degree", "status", "average").get();
+                    // Recorded right away, so a restart before the credential definition exists reuses the schema
+                    ledgerStateService.updateLedgerState(state -> state.setSchemaId(newSchemaId));
+                    schemaId = newSchemaId;
+                }
 
                 credentialDefinitionService.createCredentialDefintion(schemaId);
 
@@ -12,15 +12,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Component
 public class Seeder {
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     @Autowired
     private StudentRepository studentRepository;
@@ -43,13 +47,43 @@ public class Seeder {
                 student.setStudentId("12345678");
                 student.setFirstName("Lisa");
                 student.setLastName("Veren");
-                student.setPassword(bCryptPasswordEncoder.encode("test1234"));
+                student.setPassword(passwordEncoder.encode("test1234"));
                 student.setStudentDid(null);
                 student.setTranscript(new Transcript("Bachelor of Arts, Marketing", "enrolled", "8", false));
                 studentRepository.saveAndFlush(student);
             }
     }
 
+    /**
+     * Creates students {@code prefix + 0} up to {@code prefix + (count - 1)} that don't exist yet, all with the
+     * same password and transcript, for load testing. Returns the number of students created.
+     */
+    public int seedStudents(String prefix, int count, String password) {
+        String passwordHash = passwordEncoder.encode(password);
+        List<String> studentIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            studentIds.add(prefix + i);
+        }
+        Set<String> existing = studentIds.isEmpty() ? Collections.emptySet() : studentRepository.findExistingStudentIds(studentIds);
+        List<Student> students = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            String studentId = studentIds.get(i);
+            if (!existing.contains(studentId)) {
+                Student student = new Student();
+                student.setStudentId(studentId);
+                student.setFirstName("Student");
+                student.setLastName(Integer.toString(i));
+                student.setPassword(passwordHash);
+                student.setTranscript(new Transcript("Bachelor of Arts, Marketing", "enrolled", "8", false));
+                students.add(student);
+            }
+        }
+
+        studentRepository.saveAll(students);
+        return students.size();
+    }
+
     private boolean isEmpty() {
         return studentRepository.count() == 0 && exchangePositionRepository.count() == 0;
     }
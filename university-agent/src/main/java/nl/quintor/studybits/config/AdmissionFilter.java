@@ -0,0 +1,88 @@
+package nl.quintor.studybits.config;
+
+import nl.quintor.studybits.service.AdmissionControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rejects agent requests from an IP over its rate with 429, and requests over the global concurrency limit with 503,
+ * before the body is read. Behind a load balancer, set {@code server.use-forward-headers} so the client IP is used.
+ * The concurrency permit is held until the asynchronous response completes.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final AdmissionControl admissionControl;
+
+    public AdmissionFilter(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!admissionControl.admitIp(request.getRemoteAddr())) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests from " + request.getRemoteAddr());
+            return;
+        }
+        if (!admissionControl.tryAcquireConcurrency()) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Agent is at its concurrency limit");
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean(false);
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                admissionControl.releaseConcurrency(System.nanoTime() - start);
+            }
+        };
+        try {
+            filterChain.doFilter(request, response);
+        }
+        finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            }
+            else {
+                release.run();
+            }
+        }
+    }
+
+    private static class ReleasingListener implements AsyncListener {
+        private final Runnable release;
+
+        ReleasingListener(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
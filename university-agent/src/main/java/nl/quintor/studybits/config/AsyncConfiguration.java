@@ -0,0 +1,50 @@
+package nl.quintor.studybits.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfiguration {
+    @Value("${nl.quintor.studybits.agent.executor.pool-size:8}")
+    private int poolSize;
+
+    @Value("${nl.quintor.studybits.agent.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${nl.quintor.studybits.proof-verification.pool-size:0}")
+    private int proofVerificationPoolSize;
+
+    @Value("${nl.quintor.studybits.proof-verification.queue-capacity:500}")
+    private int proofVerificationQueueCapacity;
+
+    /**
+     * Runs the blocking (JPA) steps of a message between the Indy futures, so neither the servlet threads
+     * nor the libindy callback threads are held while the database is accessed.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor agentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("agent-");
+        return executor;
+    }
+
+    /**
+     * Verifies the proofs that were acknowledged with a receipt. Each worker holds its proof until it is verified, so
+     * the pool size, one thread per CPU by default, bounds the verifications in progress.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor proofVerificationExecutor() {
+        int poolSize = proofVerificationPoolSize > 0 ? proofVerificationPoolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(proofVerificationQueueCapacity);
+        executor.setThreadNamePrefix("proof-verification-");
+        return executor;
+    }
+}
@@ -0,0 +1,60 @@
+package nl.quintor.studybits.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The encodings of an envelope a client can choose with {@code Content-Type} and {@code Accept}. Envelopes are read
+ * from and written to the HTTP streams directly, with a reader and writer of quindy's mapper that are created once.
+ * The binary formats have the same fields as JSON and are bound by the same reader and writer, on a parser or
+ * generator of their own format.
+ */
+public enum EnvelopeFormat {
+    JSON(MediaType.APPLICATION_JSON, JSONUtil.mapper.getFactory()),
+    CBOR(new MediaType("application", "cbor"), new CBORFactory()),
+    SMILE(new MediaType("application", "x-jackson-smile"), new SmileFactory());
+
+    private static final ObjectReader ENVELOPE_READER = JSONUtil.mapper.readerFor(MessageEnvelope.class);
+    private static final ObjectWriter ENVELOPE_WRITER = JSONUtil.mapper.writerFor(MessageEnvelope.class);
+
+    private final MediaType mediaType;
+    private final JsonFactory factory;
+
+    EnvelopeFormat(MediaType mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public MessageEnvelope read(InputStream inputStream) throws IOException {
+        if (this == JSON) {
+            return ENVELOPE_READER.readValue(inputStream);
+        }
+        return ENVELOPE_READER.readValue(factory.createParser(inputStream));
+    }
+
+    public void write(MessageEnvelope messageEnvelope, OutputStream outputStream) throws IOException {
+        if (this == JSON) {
+            ENVELOPE_WRITER.writeValue(outputStream, messageEnvelope);
+        }
+        else {
+            JsonGenerator generator = factory.createGenerator(outputStream);
+            ENVELOPE_WRITER.writeValue(generator, messageEnvelope);
+            generator.flush();
+        }
+    }
+}
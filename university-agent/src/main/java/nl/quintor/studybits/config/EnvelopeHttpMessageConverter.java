@@ -0,0 +1,59 @@
+package nl.quintor.studybits.config;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads envelopes from the request body and writes them to the response body in an {@link EnvelopeFormat}, without
+ * buffering the body as a String. A request body of any content type other than CBOR or Smile is read as JSON.
+ */
+public class EnvelopeHttpMessageConverter extends AbstractHttpMessageConverter<MessageEnvelope> {
+    public EnvelopeHttpMessageConverter() {
+        super(EnvelopeFormat.JSON.getMediaType(), EnvelopeFormat.CBOR.getMediaType(), EnvelopeFormat.SMILE.getMediaType(), MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MessageEnvelope.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return mediaType == null || format(mediaType) != null;
+    }
+
+    @Override
+    protected MessageEnvelope readInternal(Class<? extends MessageEnvelope> clazz, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+        EnvelopeFormat format = format(inputMessage.getHeaders().getContentType());
+        return (format != null ? format : EnvelopeFormat.JSON).read(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(MessageEnvelope messageEnvelope, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        EnvelopeFormat format = format(outputMessage.getHeaders().getContentType());
+        (format != null ? format : EnvelopeFormat.JSON).write(messageEnvelope, outputMessage.getBody());
+    }
+
+    @Override
+    protected MediaType getDefaultContentType(MessageEnvelope messageEnvelope) {
+        return EnvelopeFormat.JSON.getMediaType();
+    }
+
+    private static EnvelopeFormat format(MediaType mediaType) {
+        if (mediaType == null || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+            return null;
+        }
+        return Arrays.stream(EnvelopeFormat.values())
+                .filter(format -> format.getMediaType().isCompatibleWith(mediaType))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -1,61 +1,115 @@
 package nl.quintor.studybits.config;
 
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.quintor.studybits.entity.LedgerState;
+import nl.quintor.studybits.indy.*;
 import nl.quintor.studybits.indy.wrapper.*;
 import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
 import nl.quintor.studybits.indy.wrapper.message.MessageEnvelopeCodec;
 import nl.quintor.studybits.indy.wrapper.util.PoolUtils;
 import nl.quintor.studybits.messages.StudyBitsMessageTypes;
-import org.apache.commons.io.FileUtils;
+import nl.quintor.studybits.service.LedgerStateService;
 import org.apache.commons.lang3.StringUtils;
 import org.hyperledger.indy.sdk.pool.Pool;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.PropertySource;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 
-import java.io.File;
-import java.nio.file.Paths;
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * The university's wallet on the pool, see {@link SimulatedIndyConfiguration} for running without one.
+ */
 @Configuration
+@Profile("!" + SimulatedIndyConfiguration.PROFILE)
 @Slf4j
 public class IndyConfiguration {
     @Value("${nl.quintor.studybits.university.name}")
     private String universityName;
 
+    @Value("${nl.quintor.studybits.ledger-cache.max-size:1000}")
+    private long ledgerCacheMaxSize;
+
+    @Value("${nl.quintor.studybits.ledger-cache.warmup-schemas:}")
+    private List<String> warmupSchemaIds;
+
+    @Value("${nl.quintor.studybits.ledger-cache.warmup-credential-definitions:}")
+    private List<String> warmupCredentialDefinitionIds;
+
+    @PostConstruct
+    public void init() {
+        StudyBitsMessageTypes.init();
+        IndyMessageTypes.init();
+    }
+
+    /**
+     * Opens the wallet in the background, the beans below wait for it when they are first used.
+     */
+    @Bean
+    public UniversityWallet universityWallet() {
+        return new UniversityWallet(this::openWallet);
+    }
 
     @Bean
-    public TrustAnchor universityTrustAnchor(IndyWallet universityWallet) throws Exception {
-        return new TrustAnchor(universityWallet);
+    public WalletHealthIndicator walletHealthIndicator(UniversityWallet universityWallet) {
+        return new WalletHealthIndicator(universityWallet);
     }
 
     @Bean
-    public Verifier universityVerifier(IndyWallet universityWallet) {
-        return new Verifier(universityWallet);
+    public EnvelopeCodec envelopeCodec(UniversityWallet universityWallet, IndyMetrics indyMetrics) {
+        return new InstrumentedEnvelopeCodec(new IndyEnvelopeCodec(universityWallet.map(MessageEnvelopeCodec::new)), indyMetrics);
     }
 
     @Bean
-    public Issuer universityIssuer(IndyWallet universityWallet) {
-        return new Issuer(universityWallet);
+    public CredentialIssuer credentialIssuer(UniversityWallet universityWallet, IndyMetrics indyMetrics) {
+        return new InstrumentedCredentialIssuer(new IndyCredentialIssuer(universityWallet.map(Issuer::new)), indyMetrics);
     }
 
+    /**
+     * Reads through the wallet's pool connection, with the university's DID as submitter.
+     */
     @Bean
-    public MessageEnvelopeCodec universityCodec(IndyWallet universityWallet) {
-        return new MessageEnvelopeCodec(universityWallet);
+    public LedgerObjectCache ledgerObjectCache(UniversityWallet universityWallet, MeterRegistry meterRegistry) {
+        CompletableFuture<Pool> pool = universityWallet.map(indyWallet -> indyWallet.getPool().getPool());
+        return new LedgerObjectCache(pool, universityWallet.map(indyWallet -> new Issuer(indyWallet).getMainDid()), ledgerCacheMaxSize, meterRegistry);
     }
 
     @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public ProofVerifier proofVerifier(LedgerObjectCache ledgerObjectCache, IndyMetrics indyMetrics) {
+        return new InstrumentedProofVerifier(new IndyProofVerifier(ledgerObjectCache), indyMetrics);
     }
 
     @Bean
-    public IndyWallet universityWallet() throws Exception {
+    public ConnectionAcceptor connectionAcceptor(UniversityWallet universityWallet, IndyMetrics indyMetrics) {
+        return new InstrumentedConnectionAcceptor(new IndyConnectionAcceptor(universityWallet.map(TrustAnchor::new)), indyMetrics);
+    }
+
+    /**
+     * Reads the configured objects, and the credential definition exchange positions ask proofs of, before the first
+     * proof arrives.
+     */
+    @EventListener
+    public void warmUpLedgerObjectCache(ApplicationReadyEvent event) {
+        LedgerObjectCache ledgerObjectCache = event.getApplicationContext().getBean(LedgerObjectCache.class);
+        LedgerState ledgerState = event.getApplicationContext().getBean(LedgerStateService.class).getLedgerState();
+
+        Set<String> credentialDefinitionIds = new LinkedHashSet<>(warmupCredentialDefinitionIds);
+        if (ledgerState.getExchangePositionCredentialDefinitionId() != null) {
+            credentialDefinitionIds.add(ledgerState.getExchangePositionCredentialDefinitionId());
+        }
+        ledgerObjectCache.warmUp(warmupSchemaIds, credentialDefinitionIds);
+    }
+
+    private IndyWallet openWallet() throws Exception {
         Pool.setProtocolVersion(PoolUtils.PROTOCOL_VERSION).get();
-        StudyBitsMessageTypes.init();
-        IndyMessageTypes.init();
 
         log.debug("Initializing wallet using name {}", universityName);
 
@@ -0,0 +1,30 @@
+package nl.quintor.studybits.config;
+
+import nl.quintor.studybits.exceptions.PasswordEncoderBusyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers logins rejected because the password encoder is saturated with 503 instead of asking for credentials again.
+ */
+public class LoginAuthenticationEntryPoint extends BasicAuthenticationEntryPoint {
+    public LoginAuthenticationEntryPoint() {
+        setRealmName("Realm");
+    }
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException {
+        // Hashing a new student's password happens while loading the user, which wraps the exception
+        if (authException instanceof PasswordEncoderBusyException || authException.getCause() instanceof PasswordEncoderBusyException) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+            return;
+        }
+        super.commence(request, response, authException);
+    }
+}
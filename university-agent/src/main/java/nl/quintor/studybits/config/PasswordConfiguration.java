@@ -0,0 +1,39 @@
+package nl.quintor.studybits.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.quintor.studybits.service.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PasswordConfiguration {
+    @Value("${nl.quintor.studybits.password.bcrypt-strength:10}")
+    private int strength;
+
+    @Value("${nl.quintor.studybits.password.threads:0}")
+    private int threads;
+
+    @Value("${nl.quintor.studybits.password.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${nl.quintor.studybits.password.max-wait-ms:1000}")
+    private long maxWaitMillis;
+
+    @Value("${server.tomcat.max-threads:200}")
+    private int servletThreads;
+
+    /**
+     * Hashes on as many threads as there are CPUs, unless configured otherwise. Logins wait for hashing on servlet
+     * threads, so the hashing threads and the queue may together hold at most half of them.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), servletThreads / 4));
+        if (poolSize + queueCapacity > servletThreads / 2) {
+            throw new IllegalStateException("Password threads (" + poolSize + ") and queue capacity (" + queueCapacity
+                    + ") may hold at most half of the " + servletThreads + " servlet threads");
+        }
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, maxWaitMillis, meterRegistry);
+    }
+}
@@ -0,0 +1,205 @@
+package nl.quintor.studybits.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Inflates request bodies sent with {@code Content-Encoding: gzip} or {@code deflate}, up to
+ * {@code max-request-bytes} once inflated. Responses are compressed by the server, see {@code server.compression}.
+ * Registered for the agent endpoints in {@link WebConfiguration}.
+ */
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+    private final long maxRequestBytes;
+
+    public RequestDecompressionFilter(long maxRequestBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        InputStream body;
+        if (contentEncoding.equalsIgnoreCase("gzip")) {
+            try {
+                body = new GZIPInputStream(request.getInputStream());
+            }
+            catch (IOException e) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), "Request body is not gzip");
+                return;
+            }
+        }
+        else if (contentEncoding.equalsIgnoreCase("deflate")) {
+            body = new InflaterInputStream(request.getInputStream());
+        }
+        else {
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported Content-Encoding " + contentEncoding);
+            return;
+        }
+        filterChain.doFilter(new InflatedRequest(request, new LimitedInputStream(body, maxRequestBytes)), response);
+    }
+
+    private static class InflatedRequest extends HttpServletRequestWrapper {
+        private static final List<String> HIDDEN_HEADERS = List.of(HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LENGTH);
+
+        private final ServletInputStream body;
+
+        InflatedRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.body = new ServletInputStream() {
+                private boolean finished = false;
+
+                @Override
+                public int read() throws IOException {
+                    int b = body.read();
+                    finished = b == -1;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = body.read(buffer, offset, length);
+                    finished = read == -1;
+                    return read;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The inflated body is always ready, but reads block on the underlying stream when needed. So the
+                 * listener is called on a container thread of the request's async context, where it may block, and
+                 * is told all data was read once it read the body to the end.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    if (!request.isAsyncStarted()) {
+                        throw new IllegalStateException("A read listener needs asynchronous request processing");
+                    }
+                    request.getAsyncContext().start(() -> {
+                        try {
+                            readListener.onDataAvailable();
+                            if (finished) {
+                                readListener.onAllDataRead();
+                            }
+                        }
+                        catch (IOException | RuntimeException e) {
+                            readListener.onError(e);
+                        }
+                    });
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> headerNames = Collections.list(super.getHeaderNames());
+            headerNames.removeIf(InflatedRequest::isHidden);
+            return Collections.enumeration(headerNames);
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            return isHidden(name) ? -1 : super.getIntHeader(name);
+        }
+
+        private static boolean isHidden(String name) {
+            return HIDDEN_HEADERS.stream().anyMatch(name::equalsIgnoreCase);
+        }
+    }
+
+    /**
+     * Fails the read once more than the limit was inflated, so a small compressed body can't fill the heap.
+     */
+    private static class LimitedInputStream extends InputStream {
+        private final InputStream inputStream;
+        private long remaining;
+
+        LimitedInputStream(InputStream inputStream, long limit) {
+            this.inputStream = inputStream;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = inputStream.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = inputStream.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+
+        private void count(int read) throws IOException {
+            remaining -= read;
+            if (remaining < 0) {
+                throw new IOException("Inflated request body exceeds the maximum size");
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package nl.quintor.studybits.config;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.indy.*;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Replaces the wallet and ledger with in-memory stand-ins, for load testing the agent without a pool or libindy.
+ * Envelopes are not encrypted and proofs are not checked, never use this profile in production.
+ */
+@Configuration
+@Profile(SimulatedIndyConfiguration.PROFILE)
+@Slf4j
+public class SimulatedIndyConfiguration {
+    public static final String PROFILE = "simulated-ledger";
+
+    @Value("${nl.quintor.studybits.simulated-ledger.crypto-latency-ms:0}")
+    private long cryptoLatencyMillis;
+
+    @Value("${nl.quintor.studybits.simulated-ledger.ledger-latency-ms:0}")
+    private long ledgerLatencyMillis;
+
+    // Not a bean itself, so the instrumented beans below are the only CredentialIssuer, ProofVerifier and ConnectionAcceptor
+    private SimulatedLedger simulatedLedger;
+
+    @PostConstruct
+    public void init() {
+        log.warn("Running with a simulated ledger, messages are not encrypted and proofs are not verified");
+        StudyBitsMessageTypes.init();
+        IndyMessageTypes.init();
+        simulatedLedger = new SimulatedLedger(ledgerLatencyMillis);
+    }
+
+    @Bean
+    public EnvelopeCodec envelopeCodec(IndyMetrics indyMetrics) {
+        return new InstrumentedEnvelopeCodec(new SimulatedEnvelopeCodec(cryptoLatencyMillis), indyMetrics);
+    }
+
+    @Bean
+    public CredentialIssuer credentialIssuer(IndyMetrics indyMetrics) {
+        return new InstrumentedCredentialIssuer(simulatedLedger, indyMetrics);
+    }
+
+    @Bean
+    public ProofVerifier proofVerifier(IndyMetrics indyMetrics) {
+        return new InstrumentedProofVerifier(simulatedLedger, indyMetrics);
+    }
+
+    @Bean
+    public ConnectionAcceptor connectionAcceptor(IndyMetrics indyMetrics) {
+        return new InstrumentedConnectionAcceptor(simulatedLedger, indyMetrics);
+    }
+}
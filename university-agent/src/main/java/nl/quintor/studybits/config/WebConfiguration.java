@@ -0,0 +1,47 @@
+package nl.quintor.studybits.config;
+
+import nl.quintor.studybits.service.AdmissionControl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+    /**
+     * Ahead of the default converters, so envelopes are read and written by {@link EnvelopeHttpMessageConverter} in
+     * every format.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new EnvelopeHttpMessageConverter());
+    }
+
+    /**
+     * First in line, so load is shed before security, decompression or reading the body.
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(AdmissionControl admissionControl) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(new AdmissionFilter(admissionControl));
+        registration.addUrlPatterns("/agent/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Only the agent endpoints accept compressed envelopes, other endpoints see the request as it was sent.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestDecompressionFilter> requestDecompressionFilter(
+            @Value("${nl.quintor.studybits.compression.max-request-bytes:10485760}") long maxRequestBytes) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration = new FilterRegistrationBean<>(new RequestDecompressionFilter(maxRequestBytes));
+        registration.addUrlPatterns("/agent/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
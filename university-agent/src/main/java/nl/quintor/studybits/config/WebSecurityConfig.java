@@ -11,7 +11,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 @EnableWebSecurity
@@ -21,9 +21,12 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private UserDetailsService studentUserDetailService;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception{
-        auth.userDetailsService(studentUserDetailService);//.passwordEncoder(bCryptPasswordEncoder);
+        auth.userDetailsService(studentUserDetailService).passwordEncoder(passwordEncoder);
     }
 
     @Override
@@ -31,7 +34,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         // TODO: Check for production
         http.csrf().disable()
             .antMatcher("/agent/login")
-                .authorizeRequests().anyRequest().permitAll().and().httpBasic();
+                .authorizeRequests().anyRequest().permitAll().and().httpBasic().authenticationEntryPoint(new LoginAuthenticationEntryPoint());
         http.anonymous().disable();
         http.sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
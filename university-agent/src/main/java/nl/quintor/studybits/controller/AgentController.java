@@ -1,14 +1,24 @@
 package nl.quintor.studybits.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import nl.quintor.studybits.config.EnvelopeFormat;
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionResponse;
 import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
 import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.service.AdmissionControl;
 import nl.quintor.studybits.service.AgentService;
 import nl.quintor.studybits.service.ExchangePositionService;
+import nl.quintor.studybits.service.InboxService;
+import nl.quintor.studybits.service.MessageBatchService;
 import org.hyperledger.indy.sdk.IndyException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @RestController
@@ -20,13 +30,50 @@ public class AgentController {
     @Autowired
     private ExchangePositionService exchangePositionService;
 
-    @PostMapping("/message")
-    public MessageEnvelope processMessage(@RequestBody String message) throws IOException, IndyException, ExecutionException, InterruptedException {
-        return agentService.processMessage(MessageEnvelope.parseFromString(message));
+    @Autowired
+    private MessageBatchService messageBatchService;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    /**
+     * A PROOF is answered with 202 Accepted and a receipt, its outcome is polled for with a GET_REQUEST for
+     * PROOF_STATUSES. Envelopes can be sent and received as JSON, CBOR or Smile, see {@link EnvelopeFormat}.
+     */
+    @PostMapping(value = "/message", produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
+    public CompletableFuture<ResponseEntity<MessageEnvelope>> processMessage(@RequestBody MessageEnvelope messageEnvelope) throws IOException, IndyException, ExecutionException, InterruptedException {
+        admissionControl.admit(messageEnvelope);
+        return agentService.processMessage(messageEnvelope)
+                .thenApply(response -> response != null && response.getMessageType().getURN().equals(StudyBitsMessageTypes.PROOF_RECEIPT.getURN())
+                        ? ResponseEntity.accepted().body(response)
+                        : ResponseEntity.ok(response));
+    }
+
+    @PostMapping("/messages")
+    public CompletableFuture<List<MessageBatchService.MessageResultDto>> processMessages(@RequestBody List<JsonNode> messages) {
+        return messageBatchService.processMessages(messages);
+    }
+
+    /**
+     * Stores an envelope in the durable inbox and answers with its id right away, see {@link InboxService}. The
+     * envelope can be sent in any {@link EnvelopeFormat}.
+     */
+    @PostMapping("/inbox")
+    public ResponseEntity<InboxService.InboxResultDto> enqueueMessage(@RequestBody MessageEnvelope messageEnvelope) throws IOException {
+        return ResponseEntity.accepted().body(inboxService.enqueue(messageEnvelope));
+    }
+
+    @GetMapping("/inbox/{id}")
+    public InboxService.InboxResultDto getInboxResult(@PathVariable("id") long id) {
+        return inboxService.getResult(id);
     }
 
-    @PostMapping("/login")
-    public MessageEnvelope login(@RequestBody String message) throws InterruptedException, ExecutionException, IndyException, IOException {
-        return agentService.login(MessageEnvelope.parseFromString(message, IndyMessageTypes.CONNECTION_REQUEST));
+    @PostMapping(value = "/login", produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
+    public CompletableFuture<MessageEnvelope<ConnectionResponse>> login(@RequestBody MessageEnvelope message) throws InterruptedException, ExecutionException, IndyException, IOException {
+        admissionControl.admit(message);
+        return agentService.login(MessageEnvelope.convertEnvelope(message, IndyMessageTypes.CONNECTION_REQUEST));
     }
 }
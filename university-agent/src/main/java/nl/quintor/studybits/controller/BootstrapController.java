@@ -3,10 +3,18 @@ package nl.quintor.studybits.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import nl.quintor.studybits.LedgerSeeder;
 import nl.quintor.studybits.Seeder;
+import nl.quintor.studybits.indy.UniversityWallet;
+import nl.quintor.studybits.repository.ExchangeApplicationRepository;
 import nl.quintor.studybits.repository.ExchangePositionRepository;
 import nl.quintor.studybits.repository.StudentRepository;
 import nl.quintor.studybits.service.CredentialDefinitionService;
+import nl.quintor.studybits.service.CredentialOfferCache;
 import nl.quintor.studybits.service.ExchangePositionService;
+import nl.quintor.studybits.service.LedgerStateService;
+import nl.quintor.studybits.service.ProofRequestTemplateCatalog;
+import nl.quintor.studybits.service.ProofStatusService;
+import nl.quintor.studybits.service.ReplayCache;
+import nl.quintor.studybits.service.StudentCache;
 import org.hyperledger.indy.sdk.IndyException;
 import org.hyperledger.indy.sdk.anoncreds.CredDefAlreadyExistsException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,16 +34,38 @@ public class BootstrapController {
     @Autowired
     private ExchangePositionRepository exchangePositionRepository;
 
+    @Autowired
+    private ExchangeApplicationRepository exchangeApplicationRepository;
+
     @Autowired
     private ExchangePositionService exchangePositionService;
 
+    @Autowired
+    private CredentialOfferCache credentialOfferCache;
+
+    @Autowired
+    private StudentCache studentCache;
+
+    @Autowired
+    private ReplayCache replayCache;
+
+    @Autowired
+    private ProofRequestTemplateCatalog proofRequestTemplateCatalog;
+
+    @Autowired
+    private ProofStatusService proofStatusService;
+
+    @Autowired
+    private LedgerStateService ledgerStateService;
+
     @Autowired
     private Seeder seeder;
 
     @Autowired(required = false)
     private LedgerSeeder ledgerSeeder;
 
-    private String credDefId;
+    @Autowired(required = false)
+    private UniversityWallet universityWallet;
 
     @PostMapping("/credential_definition/{schemaId}")
     public void createCredentialDefinition(@PathVariable("schemaId") String schemaId) throws IndyException, ExecutionException, InterruptedException, JsonProcessingException {
@@ -50,25 +80,37 @@ public class BootstrapController {
         }
     }
 
+    @GetMapping("/credential_definition")
+    public String getCredentialDefinitionId() {
+        return credentialDefinitionService.getCredentialDefinitionId();
+    }
+
     @PostMapping("/exchange_position/{credDefId}")
     public void createExchangePosition(@PathVariable("credDefId") String credDefId) throws JsonProcessingException {
         exchangePositionService.createExchangePosition(credDefId);
-        this.credDefId = credDefId;
+        ledgerStateService.updateLedgerState(ledgerState -> ledgerState.setExchangePositionCredentialDefinitionId(credDefId));
     }
 
     @PostMapping("/reset")
     public void reset() throws JsonProcessingException {
+        exchangeApplicationRepository.deleteAll();
         studentRepository.deleteAll();
         exchangePositionRepository.deleteAll();
+        credentialOfferCache.invalidateAll();
+        studentCache.invalidateAll();
+        replayCache.invalidateAll();
+        proofStatusService.invalidateAll();
+        proofRequestTemplateCatalog.invalidate();
         seeder.seed();
-        if (credDefId  != null) {
+        String credDefId = ledgerStateService.getLedgerState().getExchangePositionCredentialDefinitionId();
+        if (credDefId != null) {
             exchangePositionService.createExchangePosition(credDefId);
         }
     }
 
-
     @GetMapping("/ready")
     public boolean isReady() {
-        return ledgerSeeder != null && !ledgerSeeder.needsSeeding();
+        return ledgerSeeder != null && !ledgerSeeder.needsSeeding()
+                && (universityWallet == null || universityWallet.isReady());
     }
 }
@@ -0,0 +1,50 @@
+package nl.quintor.studybits.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import nl.quintor.studybits.Seeder;
+import nl.quintor.studybits.config.SimulatedIndyConfiguration;
+import nl.quintor.studybits.service.StudentImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Seeds and imports students that can log in, for testing. Only available in the test profiles, and passwords are
+ * taken from the body so they don't end up in access logs.
+ */
+@RestController
+@RequestMapping(value = "/bootstrap", produces = "application/json")
+@Profile({"mobile-test", SimulatedIndyConfiguration.PROFILE})
+public class StudentSeedController {
+    @Autowired
+    private Seeder seeder;
+
+    @Autowired
+    private StudentImportService studentImportService;
+
+    @PostMapping(value = "/students/{count}", consumes = "application/json")
+    public int seedStudents(@PathVariable("count") int count, @RequestBody SeedStudentsRequest request) {
+        return seeder.seedStudents(request.getPrefix(), count, request.getPassword());
+    }
+
+    /**
+     * Imports students from newline delimited JSON, see {@link StudentImportService}.
+     */
+    @PostMapping(value = "/students", consumes = "application/x-ndjson")
+    public StudentImportService.ImportSummary importStudents(InputStream ndjson) throws IOException {
+        return studentImportService.importStudents(ndjson);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SeedStudentsRequest {
+        private String prefix = "loadtest-";
+        private String password = "test1234";
+    }
+}
@@ -0,0 +1,57 @@
+package nl.quintor.studybits.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+/**
+ * A student's application for an exchange position: the proof request the student was sent, with a random nonce, and
+ * whether a proof for it was accepted. Created PENDING the first time the student lists the position, and FULFILLED
+ * by a proof for its proof request. A fulfilled application's nonce is never accepted again.
+ */
+@Entity
+@Table(indexes = {
+        @Index(columnList = "student_did, exchange_position_id"),
+        @Index(columnList = "nonce", unique = true)
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExchangeApplication {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exchange_application_seq")
+    @SequenceGenerator(name = "exchange_application_seq", sequenceName = "exchange_application_seq", allocationSize = 50)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Student student;
+
+    @Column(name = "student_did")
+    private String studentDid;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "exchange_position_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ExchangePosition exchangePosition;
+
+    @Column
+    private String nonce;
+
+    @Lob
+    private String proofRequest;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private Status status;
+
+    public enum Status {
+        PENDING, FULFILLED
+    }
+}
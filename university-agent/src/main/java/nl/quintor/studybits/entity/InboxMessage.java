@@ -0,0 +1,46 @@
+package nl.quintor.studybits.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * An envelope posted to the durable inbox, and once a worker processed it, the response envelope or error.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "status, id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inbox_message_seq")
+    @SequenceGenerator(name = "inbox_message_seq", sequenceName = "inbox_message_seq", allocationSize = 50)
+    private long id;
+
+    @Lob
+    private String envelope;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private Status status;
+
+    @Lob
+    private String response;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column
+    private Instant receivedAt;
+
+    @Column
+    private Instant completedAt;
+
+    public enum Status {
+        QUEUED, CLAIMED, DONE, FAILED
+    }
+}
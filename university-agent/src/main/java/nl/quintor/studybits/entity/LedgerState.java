@@ -0,0 +1,36 @@
+package nl.quintor.studybits.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * What this university has already written to the ledger, so a restart doesn't write it again.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LedgerState {
+    @Id
+    private String universityName;
+
+    @Column
+    private boolean onboarded;
+
+    @Column
+    private String schemaId;
+
+    @Column
+    private String credentialDefinitionId;
+
+    /**
+     * The credential definition, of another university, that this university's exchange positions ask proof of.
+     */
+    @Column
+    private String exchangePositionCredentialDefinitionId;
+}
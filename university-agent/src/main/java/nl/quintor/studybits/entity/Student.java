@@ -14,7 +14,8 @@ import javax.persistence.*;
 @NoArgsConstructor
 public class Student {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_seq")
+    @SequenceGenerator(name = "student_seq", sequenceName = "student_seq", allocationSize = 50)
     private long id;
 
     @Column(unique = true)
@@ -32,12 +33,6 @@ public class Student {
     @Column(unique = true)
     private String studentDid;
 
-    @Lob
-    private String proofRequest;
-
-    @OneToOne
-    private ExchangePosition exchangePosition;
-
     @Column
     private String myDid;
 
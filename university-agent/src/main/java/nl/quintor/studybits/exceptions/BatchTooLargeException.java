@@ -0,0 +1,12 @@
+package nl.quintor.studybits.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(String msg) {
+        super(msg);
+    }
+}
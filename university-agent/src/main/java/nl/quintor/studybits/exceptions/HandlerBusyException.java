@@ -0,0 +1,12 @@
+package nl.quintor.studybits.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class HandlerBusyException extends RuntimeException {
+
+    public HandlerBusyException(String msg) {
+        super(msg);
+    }
+}
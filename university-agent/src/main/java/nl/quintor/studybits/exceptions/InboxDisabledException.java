@@ -0,0 +1,12 @@
+package nl.quintor.studybits.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+public class InboxDisabledException extends RuntimeException {
+
+    public InboxDisabledException(String msg) {
+        super(msg);
+    }
+}
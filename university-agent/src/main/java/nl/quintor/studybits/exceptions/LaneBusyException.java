@@ -0,0 +1,12 @@
+package nl.quintor.studybits.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class LaneBusyException extends RuntimeException {
+
+    public LaneBusyException(String msg) {
+        super(msg);
+    }
+}
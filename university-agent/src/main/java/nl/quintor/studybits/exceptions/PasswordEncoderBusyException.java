@@ -0,0 +1,16 @@
+package nl.quintor.studybits.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * An AuthenticationException, so a failing login reaches the authentication entry point instead of the servlet container.
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordEncoderBusyException extends AuthenticationServiceException {
+
+    public PasswordEncoderBusyException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,70 @@
+package nl.quintor.studybits.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.indy.CredentialIssuer;
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialOffer;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialOfferList;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import nl.quintor.studybits.service.CredentialDefinitionService;
+import nl.quintor.studybits.service.CredentialOfferCache;
+import nl.quintor.studybits.service.StudentService;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+@Component
+@Slf4j
+public class CredentialOffersHandler implements GetRequestHandler {
+    @Autowired
+    private CredentialIssuer credentialIssuer;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private CredentialDefinitionService credentialDefinitionService;
+    @Autowired
+    private CredentialOfferCache credentialOfferCache;
+    @Autowired
+    private EnvelopeCodec envelopeCodec;
+
+    @Override
+    public MessageType<?> getRequestedMessageType() {
+        return IndyMessageTypes.CREDENTIAL_OFFERS;
+    }
+
+    @Override
+    public CompletableFuture<MessageEnvelope> handle(String did) throws IndyException, IOException, ExecutionException, InterruptedException {
+        CredentialOfferList credentialOffers = new CredentialOfferList();
+        Student student = studentService.getStudentByStudentDid(did);
+
+        if (student.getTranscript() != null && !student.getTranscript().isProven()) {
+            String credentialDefinitionId = credentialDefinitionService.getCredentialDefinitionId();
+            CredentialOffer cachedOffer = credentialOfferCache.get(credentialDefinitionId, did);
+            CompletableFuture<CredentialOffer> credentialOfferFuture = cachedOffer != null
+                    ? CompletableFuture.completedFuture(cachedOffer)
+                    : credentialIssuer.createCredentialOffer(credentialDefinitionId, did)
+                            .thenApply(credentialOffer -> {
+                                credentialOfferCache.put(credentialDefinitionId, did, credentialOffer);
+                                return credentialOffer;
+                            });
+
+            return credentialOfferFuture
+                    .thenCompose(AsyncUtil.wrapException(credentialOffer -> {
+                        credentialOffers.addCredentialOffer(credentialOffer);
+                        return envelopeCodec.encryptMessage(credentialOffers, IndyMessageTypes.CREDENTIAL_OFFERS, did);
+                    }))
+                    .thenApply(MessageEnvelope.class::cast);
+        }
+
+        return envelopeCodec.encryptMessage(credentialOffers, IndyMessageTypes.CREDENTIAL_OFFERS, did)
+                .thenApply(MessageEnvelope.class::cast);
+    }
+}
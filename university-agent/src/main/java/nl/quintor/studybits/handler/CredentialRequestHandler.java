@@ -0,0 +1,66 @@
+package nl.quintor.studybits.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.indy.CredentialIssuer;
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialRequest;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import nl.quintor.studybits.service.StudentService;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+@Component
+@Slf4j
+public class CredentialRequestHandler implements MessageHandler<CredentialRequest> {
+    @Autowired
+    private CredentialIssuer credentialIssuer;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private EnvelopeCodec envelopeCodec;
+    @Autowired
+    private Executor agentExecutor;
+
+    @Override
+    public MessageType<CredentialRequest> getMessageType() {
+        return IndyMessageTypes.CREDENTIAL_REQUEST;
+    }
+
+    @Override
+    public CompletableFuture<MessageEnvelope> handle(MessageEnvelope<CredentialRequest> messageEnvelope) throws IndyException, IOException, ExecutionException, InterruptedException {
+        String did = messageEnvelope.getDid();
+
+        return envelopeCodec.decryptMessage(messageEnvelope)
+                .thenComposeAsync(AsyncUtil.wrapException(credentialRequest -> {
+                    log.debug("Decrypted request");
+                    Student student = studentService.getStudentByStudentDid(did);
+
+                    Map<String, Object> values = new HashMap<>();
+                    values.put("first_name", student.getFirstName());
+                    values.put("last_name", student.getLastName());
+                    values.put("degree", student.getTranscript().getDegree());
+                    values.put("average", student.getTranscript().getAverage());
+                    values.put("status", student.getTranscript().getStatus());
+
+                    return credentialIssuer.createCredential(credentialRequest, values)
+                            .thenApplyAsync(credentialWithRequest -> {
+                                studentService.proveTranscript(student);
+                                return credentialWithRequest;
+                            }, agentExecutor);
+                }), agentExecutor)
+                .thenCompose(AsyncUtil.wrapException(credentialWithRequest -> envelopeCodec.encryptMessage(credentialWithRequest, IndyMessageTypes.CREDENTIAL, did)))
+                .thenApply(MessageEnvelope.class::cast);
+    }
+}
@@ -0,0 +1,29 @@
+package nl.quintor.studybits.handler;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.service.ExchangePositionService;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+@Component
+public class ExchangePositionsHandler implements GetRequestHandler {
+    @Autowired
+    private ExchangePositionService exchangePositionService;
+
+    @Override
+    public MessageType<?> getRequestedMessageType() {
+        return StudyBitsMessageTypes.EXCHANGE_POSITIONS;
+    }
+
+    @Override
+    public CompletableFuture<MessageEnvelope> handle(String did) throws IndyException, IOException, ExecutionException, InterruptedException {
+        return exchangePositionService.getAll(did).thenApply(MessageEnvelope.class::cast);
+    }
+}
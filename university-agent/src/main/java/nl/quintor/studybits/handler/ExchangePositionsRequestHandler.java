@@ -0,0 +1,42 @@
+package nl.quintor.studybits.handler;
+
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import nl.quintor.studybits.messages.ExchangePositionsRequest;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.service.ExchangePositionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Answers a page of exchange positions, or "not modified", see {@link ExchangePositionsRequest}. A GET_REQUEST for
+ * EXCHANGE_POSITIONS is answered with the first page, see {@link ExchangePositionsHandler}.
+ */
+@Component
+public class ExchangePositionsRequestHandler implements MessageHandler<ExchangePositionsRequest> {
+    @Autowired
+    private ExchangePositionService exchangePositionService;
+    @Autowired
+    private EnvelopeCodec envelopeCodec;
+    @Autowired
+    private Executor agentExecutor;
+
+    @Override
+    public MessageType<ExchangePositionsRequest> getMessageType() {
+        return StudyBitsMessageTypes.EXCHANGE_POSITIONS_REQUEST;
+    }
+
+    @Override
+    public CompletableFuture<MessageEnvelope> handle(MessageEnvelope<ExchangePositionsRequest> messageEnvelope) {
+        String did = messageEnvelope.getDid();
+
+        return envelopeCodec.decryptMessage(messageEnvelope)
+                .thenComposeAsync(AsyncUtil.wrapException(request -> exchangePositionService.getPage(did, request)), agentExecutor)
+                .thenApply(MessageEnvelope.class::cast);
+    }
+}
@@ -0,0 +1,27 @@
+package nl.quintor.studybits.handler;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import org.hyperledger.indy.sdk.IndyException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Answers a GET_REQUEST for a message type, on behalf of the student with the given DID.
+ */
+public interface GetRequestHandler {
+    MessageType<?> getRequestedMessageType();
+
+    /**
+     * Whether the request waits for the messages the student sent before it, see
+     * {@link nl.quintor.studybits.service.MessageLanes}. Only a request that reads nothing those messages change
+     * can do without.
+     */
+    default boolean isOrdered() {
+        return true;
+    }
+
+    CompletableFuture<MessageEnvelope> handle(String did) throws IndyException, IOException, ExecutionException, InterruptedException;
+}
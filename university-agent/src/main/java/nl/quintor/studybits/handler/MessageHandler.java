@@ -0,0 +1,19 @@
+package nl.quintor.studybits.handler;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import org.hyperledger.indy.sdk.IndyException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Handles incoming envelopes of a single message type. Beans implementing this interface are picked up by the
+ * {@link MessageHandlerRegistry}, and are limited and timed under their bean name.
+ */
+public interface MessageHandler<T> {
+    MessageType<T> getMessageType();
+
+    CompletableFuture<MessageEnvelope> handle(MessageEnvelope<T> messageEnvelope) throws IndyException, IOException, ExecutionException, InterruptedException;
+}
@@ -0,0 +1,165 @@
+package nl.quintor.studybits.handler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.exceptions.HandlerBusyException;
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import org.apache.commons.lang3.NotImplementedException;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.GET_REQUEST;
+
+/**
+ * Dispatches incoming envelopes to the {@link MessageHandler} registered for their message type, and GET_REQUESTs
+ * to the {@link GetRequestHandler} registered for the requested type. Each handler gets its own concurrency limit,
+ * configured with {@code nl.quintor.studybits.handler.<bean name>.max-concurrency}, and latency timer.
+ */
+@Component
+@Slf4j
+public class MessageHandlerRegistry {
+    private static final String GET_REQUEST_HANDLER_NAME = "getRequestHandler";
+
+    @Autowired
+    private Map<String, MessageHandler<?>> messageHandlers;
+    @Autowired
+    private Map<String, GetRequestHandler> getRequestHandlers;
+    @Autowired
+    private EnvelopeCodec envelopeCodec;
+    @Autowired
+    private Executor agentExecutor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private Environment environment;
+
+    @Value("${nl.quintor.studybits.handler.max-concurrency:64}")
+    private int defaultMaxConcurrency;
+
+    private final Map<String, Registration<MessageHandler>> handlersByURN = new HashMap<>();
+    private final Map<String, Registration<GetRequestHandler>> getRequestHandlersByURN = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        register(handlersByURN, GET_REQUEST_HANDLER_NAME, GET_REQUEST, new GetRequestDispatcher());
+        messageHandlers.forEach((name, handler) -> register(handlersByURN, name, handler.getMessageType(), handler));
+        getRequestHandlers.forEach((name, handler) -> register(getRequestHandlersByURN, name, handler.getRequestedMessageType(), handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<MessageEnvelope> dispatch(MessageEnvelope messageEnvelope) throws IndyException, IOException, ExecutionException, InterruptedException {
+        Registration<MessageHandler> registration = handlersByURN.get(messageEnvelope.getMessageType().getURN());
+        if (registration == null) {
+            throw new NotImplementedException("Processing of message type not supported: " + messageEnvelope.getMessageType());
+        }
+
+        return invoke(registration, handler -> handler.handle(MessageEnvelope.convertEnvelope(messageEnvelope, handler.getMessageType())));
+    }
+
+    /**
+     * Passes a GET_REQUEST, of which the requested message type was decrypted already, on to its handler.
+     */
+    public CompletableFuture<MessageEnvelope> dispatchGetRequest(String did, String requestedURN) throws IndyException, IOException, ExecutionException, InterruptedException {
+        Registration<GetRequestHandler> registration = getRequestHandlersByURN.get(requestedURN);
+        if (registration == null) {
+            throw new NotImplementedException("Processing of requested message type not supported: " + requestedURN);
+        }
+
+        return invoke(registration, handler -> handler.handle(did));
+    }
+
+    /**
+     * Whether a GET_REQUEST for the message type waits for the messages sent before it, see
+     * {@link GetRequestHandler#isOrdered()}. A message type without a handler is failed in order.
+     */
+    public boolean isOrdered(String requestedURN) {
+        Registration<GetRequestHandler> registration = getRequestHandlersByURN.get(requestedURN);
+        return registration == null || registration.getHandler().isOrdered();
+    }
+
+    private <H> CompletableFuture<MessageEnvelope> invoke(Registration<H> registration, HandlerCall<H> call) throws IndyException, IOException, ExecutionException, InterruptedException {
+        if (!registration.getPermits().tryAcquire()) {
+            throw new HandlerBusyException("Too many concurrent messages for handler " + registration.getName());
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<MessageEnvelope> result;
+        try {
+            result = call.apply(registration.getHandler());
+        }
+        catch (Exception e) {
+            registration.getPermits().release();
+            throw e;
+        }
+
+        return result.whenComplete((messageEnvelope, e) -> {
+            sample.stop(registration.getTimer());
+            registration.getPermits().release();
+        });
+    }
+
+    private <H> void register(Map<String, Registration<H>> registrations, String name, MessageType<?> messageType, H handler) {
+        int maxConcurrency = environment.getProperty("nl.quintor.studybits.handler." + name + ".max-concurrency", Integer.class, defaultMaxConcurrency);
+        Timer timer = Timer.builder("studybits.handler")
+                .description("Time taken to handle a message, including decryption and encryption")
+                .tag("handler", name)
+                .tag("messageType", messageType.getURN())
+                .register(meterRegistry);
+
+        Registration<H> previous = registrations.put(messageType.getURN(), new Registration<>(name, handler, new Semaphore(maxConcurrency), timer));
+        if (previous != null) {
+            throw new IllegalStateException("Handlers " + previous.getName() + " and " + name + " both handle " + messageType.getURN());
+        }
+        log.debug("Registered handler {} for {} with max concurrency {}", name, messageType.getURN(), maxConcurrency);
+    }
+
+    @FunctionalInterface
+    private interface HandlerCall<H> {
+        CompletableFuture<MessageEnvelope> apply(H handler) throws IndyException, IOException, ExecutionException, InterruptedException;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Registration<H> {
+        private final String name;
+        private final H handler;
+        private final Semaphore permits;
+        private final Timer timer;
+    }
+
+    /**
+     * Decrypts the requested message type of a GET_REQUEST and passes it on to the matching {@link GetRequestHandler}.
+     */
+    private class GetRequestDispatcher implements MessageHandler<String> {
+        @Override
+        public MessageType<String> getMessageType() {
+            return GET_REQUEST;
+        }
+
+        @Override
+        public CompletableFuture<MessageEnvelope> handle(MessageEnvelope<String> messageEnvelope) throws IndyException, IOException, ExecutionException, InterruptedException {
+            String did = messageEnvelope.getDid();
+
+            return envelopeCodec.decryptMessage(messageEnvelope)
+                    .thenComposeAsync(AsyncUtil.wrapException(requestedURN -> dispatchGetRequest(did, requestedURN)), agentExecutor);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package nl.quintor.studybits.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.ExchangeApplication;
+import nl.quintor.studybits.exceptions.HandlerBusyException;
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.ProofVerifier;
+import nl.quintor.studybits.indy.wrapper.dto.Proof;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import nl.quintor.studybits.messages.ProofStatus;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.service.ExchangePositionService;
+import nl.quintor.studybits.service.ProofRequestTemplateCatalog;
+import nl.quintor.studybits.service.ProofStatusService;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+@Component
+@Slf4j
+public class ProofHandler implements MessageHandler<Proof> {
+    @Autowired
+    private ProofVerifier proofVerifier;
+    @Autowired
+    private ExchangePositionService exchangePositionService;
+    @Autowired
+    private EnvelopeCodec envelopeCodec;
+    @Autowired
+    private ProofRequestTemplateCatalog proofRequestTemplateCatalog;
+    @Autowired
+    private ProofStatusService proofStatusService;
+    @Autowired
+    private Executor proofVerificationExecutor;
+
+    @Override
+    public MessageType<Proof> getMessageType() {
+        return IndyMessageTypes.PROOF;
+    }
+
+    /**
+     * Queues the proof for verification and answers with a receipt right away, the student polls for the outcome
+     * with a GET_REQUEST for PROOF_STATUSES. The student's next message doesn't wait for the verification,
+     * two proofs for the same application are told apart by {@link ExchangePositionService#fulfillApplication}.
+     */
+    @Override
+    public CompletableFuture<MessageEnvelope> handle(MessageEnvelope<Proof> proofEnvelope) throws IndyException, IOException, ExecutionException, InterruptedException {
+        String did = proofEnvelope.getDid();
+        ProofStatus proofStatus = proofStatusService.track(did);
+        try {
+            CompletableFuture.runAsync(() -> verifyAndFulfill(proofEnvelope, did, proofStatus.getTrackingId()), proofVerificationExecutor);
+        }
+        catch (RejectedExecutionException e) {
+            proofStatusService.forget(did, proofStatus.getTrackingId());
+            throw new HandlerBusyException("Too many proofs waiting for verification");
+        }
+        log.debug("Queued proof of {} as {}", did, proofStatus.getTrackingId());
+
+        return envelopeCodec.encryptMessage(proofStatus, StudyBitsMessageTypes.PROOF_RECEIPT, did)
+                .thenApply(MessageEnvelope.class::cast);
+    }
+
+    /**
+     * Runs on a proof verification worker and holds it until the proof is verified.
+     */
+    private void verifyAndFulfill(MessageEnvelope<Proof> proofEnvelope, String did, String trackingId) {
+        ProofStatus.Status status;
+        try {
+            Proof proof = envelopeCodec.decryptMessage(proofEnvelope).get();
+            log.debug("Proof: {}", proof);
+            List<ExchangeApplication> exchangeApplications = exchangePositionService.findPendingApplications(did, proofRequestTemplateCatalog.findMatchingPositions(proof));
+            long exchangeApplicationId = verify(exchangeApplications.iterator(), proof, did).get();
+            exchangePositionService.fulfillApplication(exchangeApplicationId);
+            status = ProofStatus.Status.ACCEPTED;
+        }
+        catch (ExecutionException e) {
+            log.debug("Proof {} of {} not accepted", trackingId, did, e.getCause());
+            status = e.getCause() instanceof AccessDeniedException ? ProofStatus.Status.REJECTED : ProofStatus.Status.FAILED;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = ProofStatus.Status.FAILED;
+        }
+        catch (AccessDeniedException e) {
+            log.debug("Proof {} of {} not accepted", trackingId, did, e);
+            status = ProofStatus.Status.REJECTED;
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn("Verifying proof {} of {} failed", trackingId, did, e);
+            status = ProofStatus.Status.FAILED;
+        }
+        proofStatusService.complete(did, trackingId, status);
+    }
+
+    /**
+     * Indy proofs don't contain the nonce of their proof request, so the proof is verified against the stored proof
+     * requests, each with the nonce of its application, of the student's pending applications for the positions it
+     * can be an answer to, see {@link ProofRequestTemplateCatalog#findMatchingPositions}, until one of them matches.
+     * That is a single verification unless positions ask for the same attributes. A proof for a nonce the student
+     * wasn't sent, or of an application that was already fulfilled, matches none.
+     */
+    private CompletableFuture<Long> verify(Iterator<ExchangeApplication> exchangeApplications, Proof proof, String did) {
+        if (!exchangeApplications.hasNext()) {
+            return CompletableFuture.failedFuture(new AccessDeniedException("No pending exchange application matches the proof of " + did));
+        }
+
+        ExchangeApplication exchangeApplication = exchangeApplications.next();
+        ProofRequest proofRequest;
+        try {
+            proofRequest = JSONUtil.mapper.readValue(exchangeApplication.getProofRequest(), ProofRequest.class);
+        }
+        catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // A failure to verify, rather than a proof that doesn't match, fails the proof instead of rejecting it
+        return proofVerifier.verifyProof(proofRequest, proof)
+                .thenCompose(valid -> {
+                    if (valid) {
+                        return CompletableFuture.completedFuture(exchangeApplication.getId());
+                    }
+                    log.debug("Proof of {} doesn't match exchange application {}", did, exchangeApplication.getId());
+                    return verify(exchangeApplications, proof, did);
+                });
+    }
+}
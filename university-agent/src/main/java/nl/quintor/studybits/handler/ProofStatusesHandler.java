@@ -0,0 +1,43 @@
+package nl.quintor.studybits.handler;
+
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.messages.AuthcryptableProofStatuses;
+import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.service.ProofStatusService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tells a student how the verification of the proofs they sent went, see {@link ProofHandler}.
+ */
+@Component
+public class ProofStatusesHandler implements GetRequestHandler {
+    @Autowired
+    private ProofStatusService proofStatusService;
+    @Autowired
+    private EnvelopeCodec envelopeCodec;
+
+    @Override
+    public MessageType<?> getRequestedMessageType() {
+        return StudyBitsMessageTypes.PROOF_STATUSES;
+    }
+
+    /**
+     * Proofs are verified outside of the student's lane, so polling for their statuses doesn't wait in it.
+     */
+    @Override
+    public boolean isOrdered() {
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<MessageEnvelope> handle(String did) {
+        AuthcryptableProofStatuses proofStatuses = new AuthcryptableProofStatuses(proofStatusService.getProofStatuses(did));
+        return envelopeCodec.encryptMessage(proofStatuses, StudyBitsMessageTypes.PROOF_STATUSES, did)
+                .thenApply(MessageEnvelope.class::cast);
+    }
+}
@@ -0,0 +1,13 @@
+package nl.quintor.studybits.indy;
+
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionRequest;
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Accepts connection requests of students logging in. Failures are reported through the returned future.
+ */
+public interface ConnectionAcceptor {
+    CompletableFuture<ConnectionResponse> acceptConnectionRequest(ConnectionRequest connectionRequest);
+}
@@ -0,0 +1,19 @@
+package nl.quintor.studybits.indy;
+
+import nl.quintor.studybits.indy.wrapper.dto.CredentialOffer;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialRequest;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialWithRequest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Defines credentials and issues them to students. Failures are reported through the returned future.
+ */
+public interface CredentialIssuer {
+    CompletableFuture<String> defineCredential(String schemaId);
+
+    CompletableFuture<CredentialOffer> createCredentialOffer(String credentialDefinitionId, String did);
+
+    CompletableFuture<CredentialWithRequest> createCredential(CredentialRequest credentialRequest, Map<String, Object> values);
+}
@@ -0,0 +1,16 @@
+package nl.quintor.studybits.indy;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Encrypts and decrypts the envelopes exchanged with students. Failures are reported through the returned future.
+ */
+public interface EnvelopeCodec {
+    <T extends Serializable> CompletableFuture<MessageEnvelope<T>> encryptMessage(T message, MessageType<T> messageType, String did);
+
+    <T extends Serializable> CompletableFuture<T> decryptMessage(MessageEnvelope<T> messageEnvelope);
+}
@@ -0,0 +1,22 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.TrustAnchor;
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionRequest;
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionResponse;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls wait for the trust anchor, which is created once the wallet is open, see {@link UniversityWallet}.
+ */
+@AllArgsConstructor
+public class IndyConnectionAcceptor implements ConnectionAcceptor {
+    private final CompletableFuture<TrustAnchor> trustAnchor;
+
+    @Override
+    public CompletableFuture<ConnectionResponse> acceptConnectionRequest(ConnectionRequest connectionRequest) {
+        return trustAnchor.thenCompose(AsyncUtil.wrapException(universityTrustAnchor -> universityTrustAnchor.acceptConnectionRequest(connectionRequest)));
+    }
+}
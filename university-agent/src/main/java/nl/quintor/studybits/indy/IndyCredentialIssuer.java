@@ -0,0 +1,34 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.Issuer;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialOffer;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialRequest;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialWithRequest;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls wait for the issuer, which is created once the wallet is open, see {@link UniversityWallet}.
+ */
+@AllArgsConstructor
+public class IndyCredentialIssuer implements CredentialIssuer {
+    private final CompletableFuture<Issuer> issuer;
+
+    @Override
+    public CompletableFuture<String> defineCredential(String schemaId) {
+        return issuer.thenCompose(AsyncUtil.wrapException(universityIssuer -> universityIssuer.defineCredential(schemaId)));
+    }
+
+    @Override
+    public CompletableFuture<CredentialOffer> createCredentialOffer(String credentialDefinitionId, String did) {
+        return issuer.thenCompose(AsyncUtil.wrapException(universityIssuer -> universityIssuer.createCredentialOffer(credentialDefinitionId, did)));
+    }
+
+    @Override
+    public CompletableFuture<CredentialWithRequest> createCredential(CredentialRequest credentialRequest, Map<String, Object> values) {
+        return issuer.thenCompose(AsyncUtil.wrapException(universityIssuer -> universityIssuer.createCredential(credentialRequest, values)));
+    }
+}
@@ -0,0 +1,32 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelopeCodec;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls wait for the codec, which is created once the wallet is open, see {@link UniversityWallet}.
+ */
+@AllArgsConstructor
+public class IndyEnvelopeCodec implements EnvelopeCodec {
+    private final CompletableFuture<MessageEnvelopeCodec> messageEnvelopeCodec;
+
+    public IndyEnvelopeCodec(MessageEnvelopeCodec messageEnvelopeCodec) {
+        this(CompletableFuture.completedFuture(messageEnvelopeCodec));
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<MessageEnvelope<T>> encryptMessage(T message, MessageType<T> messageType, String did) {
+        return messageEnvelopeCodec.thenCompose(AsyncUtil.wrapException(codec -> codec.encryptMessage(message, messageType, did)));
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> decryptMessage(MessageEnvelope<T> messageEnvelope) {
+        return messageEnvelopeCodec.thenCompose(AsyncUtil.wrapException(codec -> codec.decryptMessage(messageEnvelope)));
+    }
+}
@@ -0,0 +1,50 @@
+package nl.quintor.studybits.indy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Records latency, in-flight count and errors of wallet and ledger operations, tagged by operation and message type.
+ */
+@Component
+public class IndyMetrics {
+    private static final String NO_MESSAGE_TYPE = "none";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Tags, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public <T> CompletableFuture<T> record(String operation, MessageType<?> messageType, Supplier<CompletableFuture<T>> call) {
+        Tags tags = Tags.of("operation", operation, "messageType", messageType != null ? messageType.getURN() : NO_MESSAGE_TYPE);
+        Timer timer = Timer.builder("studybits.indy")
+                .description("Time taken by wallet and ledger operations")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        AtomicInteger inFlightCount = inFlight.computeIfAbsent(tags, key -> meterRegistry.gauge("studybits.indy.in_flight", key, new AtomicInteger()));
+
+        inFlightCount.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return call.get().whenComplete((result, e) -> {
+            sample.stop(timer);
+            inFlightCount.decrementAndGet();
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                meterRegistry.counter("studybits.indy.errors", tags.and("exception", cause.getClass().getSimpleName())).increment();
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package nl.quintor.studybits.indy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.dto.Proof;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import org.hyperledger.indy.sdk.anoncreds.Anoncreds;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Calls libindy directly, with the schemas and credential definitions from the {@link LedgerObjectCache}, where the
+ * quindy verifier reads them from the ledger for every proof. Reads wait for the wallet's pool, see
+ * {@link UniversityWallet}.
+ */
+@AllArgsConstructor
+public class IndyProofVerifier implements ProofVerifier {
+    private final LedgerObjectCache ledgerObjectCache;
+
+    @Override
+    public CompletableFuture<Boolean> verifyProof(ProofRequest proofRequest, Proof proof) {
+        JsonNode proofJson = JSONUtil.mapper.valueToTree(proof);
+        ObjectNode schemas = JSONUtil.mapper.createObjectNode();
+        ObjectNode credentialDefinitions = JSONUtil.mapper.createObjectNode();
+        List<CompletableFuture<?>> reads = new ArrayList<>();
+
+        for (JsonNode identifier : proofJson.path("identifiers")) {
+            String schemaId = identifier.path("schema_id").asText();
+            String credentialDefinitionId = identifier.path("cred_def_id").asText();
+            reads.add(ledgerObjectCache.getSchema(schemaId).thenAccept(schema -> put(schemas, schemaId, schema)));
+            reads.add(ledgerObjectCache.getCredentialDefinition(credentialDefinitionId).thenAccept(credentialDefinition -> put(credentialDefinitions, credentialDefinitionId, credentialDefinition)));
+        }
+
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]))
+                .thenCompose(AsyncUtil.wrapException(ignored -> Anoncreds.verifierVerifyProof(proofRequest.toJSON(), proofJson.toString(),
+                        schemas.toString(), credentialDefinitions.toString(), "{}", "{}")));
+    }
+
+    private static void put(ObjectNode objects, String id, String json) {
+        JsonNode object;
+        try {
+            object = JSONUtil.mapper.readTree(json);
+        }
+        catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        synchronized (objects) {
+            objects.set(id, object);
+        }
+    }
+}
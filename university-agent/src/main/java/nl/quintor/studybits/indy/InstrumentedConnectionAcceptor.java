@@ -0,0 +1,19 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionRequest;
+import nl.quintor.studybits.indy.wrapper.dto.ConnectionResponse;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+
+import java.util.concurrent.CompletableFuture;
+
+@AllArgsConstructor
+public class InstrumentedConnectionAcceptor implements ConnectionAcceptor {
+    private final ConnectionAcceptor delegate;
+    private final IndyMetrics indyMetrics;
+
+    @Override
+    public CompletableFuture<ConnectionResponse> acceptConnectionRequest(ConnectionRequest connectionRequest) {
+        return indyMetrics.record("acceptConnectionRequest", IndyMessageTypes.CONNECTION_REQUEST, () -> delegate.acceptConnectionRequest(connectionRequest));
+    }
+}
@@ -0,0 +1,31 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialOffer;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialRequest;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialWithRequest;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@AllArgsConstructor
+public class InstrumentedCredentialIssuer implements CredentialIssuer {
+    private final CredentialIssuer delegate;
+    private final IndyMetrics indyMetrics;
+
+    @Override
+    public CompletableFuture<String> defineCredential(String schemaId) {
+        return indyMetrics.record("defineCredential", null, () -> delegate.defineCredential(schemaId));
+    }
+
+    @Override
+    public CompletableFuture<CredentialOffer> createCredentialOffer(String credentialDefinitionId, String did) {
+        return indyMetrics.record("createCredentialOffer", IndyMessageTypes.CREDENTIAL_OFFERS, () -> delegate.createCredentialOffer(credentialDefinitionId, did));
+    }
+
+    @Override
+    public CompletableFuture<CredentialWithRequest> createCredential(CredentialRequest credentialRequest, Map<String, Object> values) {
+        return indyMetrics.record("createCredential", IndyMessageTypes.CREDENTIAL_REQUEST, () -> delegate.createCredential(credentialRequest, values));
+    }
+}
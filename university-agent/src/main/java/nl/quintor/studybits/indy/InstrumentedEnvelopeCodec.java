@@ -0,0 +1,24 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+@AllArgsConstructor
+public class InstrumentedEnvelopeCodec implements EnvelopeCodec {
+    private final EnvelopeCodec delegate;
+    private final IndyMetrics indyMetrics;
+
+    @Override
+    public <T extends Serializable> CompletableFuture<MessageEnvelope<T>> encryptMessage(T message, MessageType<T> messageType, String did) {
+        return indyMetrics.record("encryptMessage", messageType, () -> delegate.encryptMessage(message, messageType, did));
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> decryptMessage(MessageEnvelope<T> messageEnvelope) {
+        return indyMetrics.record("decryptMessage", messageEnvelope.getMessageType(), () -> delegate.decryptMessage(messageEnvelope));
+    }
+}
@@ -0,0 +1,19 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import nl.quintor.studybits.indy.wrapper.dto.Proof;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+import nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes;
+
+import java.util.concurrent.CompletableFuture;
+
+@AllArgsConstructor
+public class InstrumentedProofVerifier implements ProofVerifier {
+    private final ProofVerifier delegate;
+    private final IndyMetrics indyMetrics;
+
+    @Override
+    public CompletableFuture<Boolean> verifyProof(ProofRequest proofRequest, Proof proof) {
+        return indyMetrics.record("verifyProof", IndyMessageTypes.PROOF, () -> delegate.verifyProof(proofRequest, proof));
+    }
+}
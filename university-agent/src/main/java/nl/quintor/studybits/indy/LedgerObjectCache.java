@@ -0,0 +1,108 @@
+package nl.quintor.studybits.indy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.hyperledger.indy.sdk.IndyException;
+import org.hyperledger.indy.sdk.ledger.Ledger;
+import org.hyperledger.indy.sdk.ledger.LedgerResults;
+import org.hyperledger.indy.sdk.pool.Pool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Schemas and credential definitions read from the ledger, as JSON keyed by id. Both are immutable once written, so
+ * they are kept until evicted for size, and after the first proof for a credential definition verifying reads nothing
+ * from the ledger. A failed read is not kept. DID keys are not kept here: the keys of students' pairwise DIDs come
+ * from the wallet, and libindy stores a key it had to read from the ledger in the wallet itself.
+ */
+@Slf4j
+public class LedgerObjectCache {
+    private final CompletableFuture<Pool> pool;
+    private final CompletableFuture<String> submitterDid;
+    private final Cache<String, CompletableFuture<String>> ledgerObjects;
+
+    public LedgerObjectCache(CompletableFuture<Pool> pool, CompletableFuture<String> submitterDid, long maxSize, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.submitterDid = submitterDid;
+        this.ledgerObjects = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ledgerObjects, "ledgerObjects");
+    }
+
+    public CompletableFuture<String> getSchema(String schemaId) {
+        return get(schemaId, did -> Ledger.buildGetSchemaRequest(did, schemaId), Ledger::parseGetSchemaResponse);
+    }
+
+    public CompletableFuture<String> getCredentialDefinition(String credentialDefinitionId) {
+        return get(credentialDefinitionId, did -> Ledger.buildGetCredDefRequest(did, credentialDefinitionId), Ledger::parseGetCredDefResponse);
+    }
+
+    /**
+     * Reads the given objects ahead of the first proof that needs them. Failures are only logged, the object is read
+     * again when a proof needs it.
+     */
+    public CompletableFuture<Void> warmUp(Collection<String> schemaIds, Collection<String> credentialDefinitionIds) {
+        List<CompletableFuture<String>> reads = new ArrayList<>();
+        schemaIds.stream().filter(id -> !id.isBlank()).forEach(schemaId -> reads.add(getSchema(schemaId)));
+        credentialDefinitionIds.stream().filter(id -> !id.isBlank()).forEach(credentialDefinitionId -> reads.add(getCredentialDefinition(credentialDefinitionId)));
+
+        return CompletableFuture.allOf(reads.stream()
+                .map(read -> read.handle((ledgerObject, e) -> {
+                    if (e != null) {
+                        log.warn("Warming up the ledger object cache failed for an object", e);
+                    }
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new))
+                .thenRun(() -> log.info("Ledger object cache warmed up with {} of {} objects", ledgerObjects.estimatedSize(), reads.size()));
+    }
+
+    private CompletableFuture<String> get(String id, LedgerCall<String> buildRequest, LedgerCall<LedgerResults.ParseResponseResult> parseResponse) {
+        CompletableFuture<String> ledgerObject = new CompletableFuture<>();
+        CompletableFuture<String> cached = ledgerObjects.get(id, ignored -> ledgerObject);
+        if (cached != ledgerObject) {
+            return cached;
+        }
+
+        log.debug("Reading {} from the ledger", id);
+        pool.thenCompose(ledgerPool -> submitterDid
+                        .thenCompose(wrap(buildRequest))
+                        .thenCompose(wrap(request -> Ledger.submitRequest(ledgerPool, request))))
+                .thenCompose(wrap(parseResponse))
+                .whenComplete((result, e) -> {
+                    if (e == null) {
+                        ledgerObject.complete(result.getObjectJson());
+                    }
+                    else {
+                        ledgerObjects.asMap().remove(id, ledgerObject);
+                        ledgerObject.completeExceptionally(e);
+                    }
+                });
+        return ledgerObject;
+    }
+
+    private static <T> Function<String, CompletableFuture<T>> wrap(LedgerCall<T> call) {
+        return argument -> {
+            try {
+                return call.apply(argument);
+            }
+            catch (IndyException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface LedgerCall<T> {
+        CompletableFuture<T> apply(String argument) throws IndyException;
+    }
+}
@@ -0,0 +1,17 @@
+package nl.quintor.studybits.indy;
+
+import nl.quintor.studybits.indy.wrapper.dto.Proof;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Verifies proofs sent by students. Failures are reported through the returned future.
+ */
+public interface ProofVerifier {
+    /**
+     * Checks a proof without reading its revealed attributes, completing with false when it doesn't satisfy the
+     * proof request.
+     */
+    CompletableFuture<Boolean> verifyProof(ProofRequest proofRequest, Proof proof);
+}
@@ -0,0 +1,44 @@
+package nl.quintor.studybits.indy;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+
+import java.io.Serializable;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stands in for libindy's authcrypt. The message is serialized and base64 encoded where the ciphertext would be, so
+ * envelopes have the structure and roughly the size of real ones, but nothing is encrypted. Any party using this
+ * codec can read the envelopes of any other.
+ */
+public class SimulatedEnvelopeCodec implements EnvelopeCodec {
+    private final SimulatedLatency latency;
+
+    public SimulatedEnvelopeCodec(long latencyMillis) {
+        this.latency = new SimulatedLatency(latencyMillis);
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<MessageEnvelope<T>> encryptMessage(T message, MessageType<T> messageType, String did) {
+        return latency.complete(() -> {
+            ObjectNode envelope = JSONUtil.mapper.createObjectNode();
+            envelope.put("id", did);
+            envelope.put("type", messageType.getURN());
+            envelope.put("message", Base64.getEncoder().encodeToString(JSONUtil.mapper.writeValueAsBytes(message)));
+
+            return MessageEnvelope.parseFromString(envelope.toString(), messageType);
+        });
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> decryptMessage(MessageEnvelope<T> messageEnvelope) {
+        return latency.complete(() -> {
+            String message = JSONUtil.mapper.valueToTree(messageEnvelope).get("message").asText();
+
+            return JSONUtil.mapper.readValue(Base64.getDecoder().decode(message), messageEnvelope.getMessageType().getValueType());
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package nl.quintor.studybits.indy;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes simulated wallet and ledger operations after a fixed delay, on another thread like libindy's callbacks.
+ * Without a delay, operations complete on the calling thread.
+ */
+class SimulatedLatency {
+    private final Executor executor;
+
+    SimulatedLatency(long latencyMillis) {
+        this.executor = latencyMillis > 0 ? CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    <T> CompletableFuture<T> complete(Callable<T> operation) {
+        if (executor == null) {
+            try {
+                return CompletableFuture.completedFuture(operation.call());
+            }
+            catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(operation.call());
+            }
+            catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
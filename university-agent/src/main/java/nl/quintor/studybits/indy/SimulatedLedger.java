@@ -0,0 +1,80 @@
+package nl.quintor.studybits.indy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import nl.quintor.studybits.indy.wrapper.dto.*;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stands in for the university's wallet and the ledger. Every operation succeeds with an empty result, so the agent
+ * can be exercised without a pool. Proofs are not checked.
+ */
+public class SimulatedLedger implements CredentialIssuer, ProofVerifier, ConnectionAcceptor {
+    private final SimulatedLatency latency;
+
+    public SimulatedLedger(long latencyMillis) {
+        this.latency = new SimulatedLatency(latencyMillis);
+    }
+
+    @Override
+    public CompletableFuture<String> defineCredential(String schemaId) {
+        return latency.complete(() -> "simulated:3:CL:" + schemaId + ":default");
+    }
+
+    @Override
+    public CompletableFuture<CredentialOffer> createCredentialOffer(String credentialDefinitionId, String did) {
+        return latency.complete(() -> empty(CredentialOffer.class));
+    }
+
+    @Override
+    public CompletableFuture<CredentialWithRequest> createCredential(CredentialRequest credentialRequest, Map<String, Object> values) {
+        return latency.complete(() -> empty(CredentialWithRequest.class));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verifyProof(ProofRequest proofRequest, Proof proof) {
+        return latency.complete(() -> true);
+    }
+
+    @Override
+    public CompletableFuture<ConnectionResponse> acceptConnectionRequest(ConnectionRequest connectionRequest) {
+        return latency.complete(() -> empty(ConnectionResponse.class));
+    }
+
+    /**
+     * A proof shaped like the one libindy creates for the proof request, proving every referent from the first
+     * credential definition its restrictions allow, so it matches the position the proof request is for.
+     */
+    public static Proof proofFor(ProofRequest proofRequest) throws Exception {
+        JsonNode request = JSONUtil.mapper.readTree(proofRequest.toJSON());
+        ObjectNode proof = JSONUtil.mapper.createObjectNode();
+        ObjectNode requestedProof = proof.putObject("requested_proof");
+        ArrayNode identifiers = proof.putArray("identifiers");
+
+        for (String section : new String[]{"requested_attributes", "requested_predicates"}) {
+            ObjectNode proven = requestedProof.putObject(section.equals("requested_attributes") ? "revealed_attrs" : "predicates");
+            Iterator<Map.Entry<String, JsonNode>> referents = request.path(section).fields();
+            while (referents.hasNext()) {
+                Map.Entry<String, JsonNode> referent = referents.next();
+                proven.putObject(referent.getKey()).put("sub_proof_index", identifiers.size());
+                identifiers.addObject().put("cred_def_id", referent.getValue().path("restrictions").path(0).path("cred_def_id").asText());
+            }
+        }
+        requestedProof.putObject("unrevealed_attrs");
+        requestedProof.putObject("self_attested_attrs");
+
+        return JSONUtil.mapper.treeToValue(proof, Proof.class);
+    }
+
+    /**
+     * An instance of a quindy DTO without any fields set.
+     */
+    public static <T> T empty(Class<T> type) throws Exception {
+        return JSONUtil.mapper.readValue("{}", type);
+    }
+}
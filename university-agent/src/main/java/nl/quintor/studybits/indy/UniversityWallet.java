@@ -0,0 +1,73 @@
+package nl.quintor.studybits.indy;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.indy.wrapper.IndyWallet;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The university's wallet, opened on a background thread so the agent doesn't wait for the pool to start. The Indy
+ * adapters compose on {@link #map}, and {@link #isReady()} tells whether crypto is usable yet.
+ */
+@Slf4j
+public class UniversityWallet {
+    private final CompletableFuture<IndyWallet> wallet;
+
+    public UniversityWallet(Callable<IndyWallet> walletFactory) {
+        long start = System.nanoTime();
+        wallet = CompletableFuture.supplyAsync(() -> {
+            try {
+                return walletFactory.call();
+            }
+            catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, new SimpleAsyncTaskExecutor("wallet-init-"));
+
+        wallet.whenComplete((indyWallet, e) -> {
+            if (e == null) {
+                log.info("University wallet ready after {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            else {
+                log.error("Opening the university wallet failed", e);
+            }
+        });
+    }
+
+    /**
+     * Creates a quindy role, such as an Issuer, on the wallet once it is open.
+     */
+    public <T> CompletableFuture<T> map(WalletFunction<T> factory) {
+        return wallet.thenApply(indyWallet -> {
+            try {
+                return factory.apply(indyWallet);
+            }
+            catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return wallet.isDone() && !wallet.isCompletedExceptionally();
+    }
+
+    /**
+     * The reason opening the wallet failed, or null when it didn't (yet).
+     */
+    public Throwable getFailure() {
+        if (!wallet.isCompletedExceptionally()) {
+            return null;
+        }
+        return wallet.handle((indyWallet, e) -> e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).join();
+    }
+
+    @FunctionalInterface
+    public interface WalletFunction<T> {
+        T apply(IndyWallet indyWallet) throws Exception;
+    }
+}
@@ -0,0 +1,28 @@
+package nl.quintor.studybits.indy;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * Reports OUT_OF_SERVICE while the university wallet is being opened, so the agent isn't sent messages it can't
+ * decrypt yet, and DOWN when opening it failed.
+ */
+@AllArgsConstructor
+public class WalletHealthIndicator extends AbstractHealthIndicator {
+    private final UniversityWallet universityWallet;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        Throwable failure = universityWallet.getFailure();
+        if (failure != null) {
+            builder.down(failure);
+        }
+        else if (universityWallet.isReady()) {
+            builder.up();
+        }
+        else {
+            builder.outOfService().withDetail("wallet", "opening");
+        }
+    }
+}
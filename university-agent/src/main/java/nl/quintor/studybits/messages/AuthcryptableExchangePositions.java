@@ -9,9 +9,24 @@ import nl.quintor.studybits.service.ExchangePositionService;
 import java.io.Serializable;
 import java.util.List;
 
+/**
+ * A page of exchange positions. {@code nextCursor} is null on the last page. When {@code notModified} is set the
+ * catalog didn't change since {@code catalogVersion} and no positions are sent.
+ */
 @AllArgsConstructor
 @Data
 @NoArgsConstructor
 public class AuthcryptableExchangePositions implements Serializable {
     private List<ExchangePositionService.ExchangePositionDto> exchangePositions;
+    private String catalogVersion;
+    private Long nextCursor;
+    private boolean notModified;
+
+    public AuthcryptableExchangePositions(List<ExchangePositionService.ExchangePositionDto> exchangePositions) {
+        this(exchangePositions, null, null, false);
+    }
+
+    public static AuthcryptableExchangePositions notModified(String catalogVersion) {
+        return new AuthcryptableExchangePositions(null, catalogVersion, null, true);
+    }
 }
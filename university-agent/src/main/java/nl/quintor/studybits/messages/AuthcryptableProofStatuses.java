@@ -0,0 +1,15 @@
+package nl.quintor.studybits.messages;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+@NoArgsConstructor
+public class AuthcryptableProofStatuses implements Serializable {
+    private List<ProofStatus> proofStatuses;
+}
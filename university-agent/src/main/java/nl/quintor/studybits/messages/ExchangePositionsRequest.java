@@ -0,0 +1,21 @@
+package nl.quintor.studybits.messages;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Asks for a page of exchange positions, after the position with id {@code cursor}, or from the start when it is
+ * null. On a request from the start with the {@code catalogVersion} of the last listing the student got, the agent
+ * answers "not modified" if the catalog didn't change since. Empty fields get the defaults of the agent.
+ */
+@AllArgsConstructor
+@Data
+@NoArgsConstructor
+public class ExchangePositionsRequest implements Serializable {
+    private Long cursor;
+    private Integer pageSize;
+    private String catalogVersion;
+}
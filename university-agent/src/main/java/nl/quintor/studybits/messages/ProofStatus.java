@@ -0,0 +1,23 @@
+package nl.quintor.studybits.messages;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Where the verification of a proof stands. Sent as the receipt of a PROOF, with status PENDING, and listed in
+ * answer to a GET_REQUEST for {@link StudyBitsMessageTypes#PROOF_STATUSES}.
+ */
+@AllArgsConstructor
+@Data
+@NoArgsConstructor
+public class ProofStatus implements Serializable {
+    private String trackingId;
+    private Status status;
+
+    public enum Status {
+        PENDING, ACCEPTED, REJECTED, FAILED
+    }
+}
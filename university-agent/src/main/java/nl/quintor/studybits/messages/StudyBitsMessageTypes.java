@@ -15,12 +15,24 @@ public class StudyBitsMessageTypes {
     public static MessageType<AuthcryptableExchangePositions> EXCHANGE_POSITIONS = new IndyMessageTypes.StandardMessageType<>(
             STUDYBITS_URN_PREFIX + "exchange_position/1.0/exchangePositions", MessageType.Encryption.AUTHCRYPTED, AuthcryptableExchangePositions.class);
 
+    public static MessageType<ExchangePositionsRequest> EXCHANGE_POSITIONS_REQUEST = new IndyMessageTypes.StandardMessageType<>(
+            STUDYBITS_URN_PREFIX + "exchange_position/1.0/exchangePositionsRequest", MessageType.Encryption.AUTHCRYPTED, ExchangePositionsRequest.class);
+
+    public static MessageType<ProofStatus> PROOF_RECEIPT = new IndyMessageTypes.StandardMessageType<>(
+            STUDYBITS_URN_PREFIX + "proof/1.0/proofReceipt", MessageType.Encryption.AUTHCRYPTED, ProofStatus.class);
+
+    public static MessageType<AuthcryptableProofStatuses> PROOF_STATUSES = new IndyMessageTypes.StandardMessageType<>(
+            STUDYBITS_URN_PREFIX + "proof/1.0/proofStatuses", MessageType.Encryption.AUTHCRYPTED, AuthcryptableProofStatuses.class);
+
     public static void init() {
         log.debug("Trying to initialize message types");
         if (!initialized.get()) {
             if(initialized.compareAndSet(false, true)) {
                 log.debug("Initializing message types");
                 MessageTypes.registerType(EXCHANGE_POSITIONS);
+                MessageTypes.registerType(EXCHANGE_POSITIONS_REQUEST);
+                MessageTypes.registerType(PROOF_RECEIPT);
+                MessageTypes.registerType(PROOF_STATUSES);
             }
         }
     }
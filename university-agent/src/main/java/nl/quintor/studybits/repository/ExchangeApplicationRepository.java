@@ -0,0 +1,24 @@
+package nl.quintor.studybits.repository;
+
+import nl.quintor.studybits.entity.ExchangeApplication;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExchangeApplicationRepository extends JpaRepository<ExchangeApplication, Long> {
+    public List<ExchangeApplication> findByStudentDidAndExchangePositionIdIn(String studentDid, Collection<Long> exchangePositionIds);
+
+    public List<ExchangeApplication> findByStudentDidAndStatusAndExchangePositionIdInOrderById(String studentDid, ExchangeApplication.Status status, Collection<Long> exchangePositionIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from ExchangeApplication a where a.id = :id")
+    public Optional<ExchangeApplication> findByIdForUpdate(@Param("id") long id);
+}
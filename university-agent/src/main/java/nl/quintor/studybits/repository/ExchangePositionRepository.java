@@ -2,9 +2,17 @@ package nl.quintor.studybits.repository;
 
 import nl.quintor.studybits.entity.ExchangePosition;
 import nl.quintor.studybits.entity.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ExchangePositionRepository extends JpaRepository<ExchangePosition, Long> {
+    /**
+     * A page of positions after the given id, for keyset pagination. Unlike an offset, the id keeps a page stable
+     * while positions are added.
+     */
+    public List<ExchangePosition> findByIdGreaterThanOrderById(long id, Pageable pageable);
 }
@@ -0,0 +1,32 @@
+package nl.quintor.studybits.repository;
+
+import nl.quintor.studybits.entity.InboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InboxMessageRepository extends JpaRepository<InboxMessage, Long> {
+    public long countByStatus(InboxMessage.Status status);
+
+    public List<InboxMessage> findByStatusOrderById(InboxMessage.Status status, Pageable pageable);
+
+    @Modifying
+    @Query("update InboxMessage m set m.status = :status where m.id in :ids")
+    public int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") InboxMessage.Status status);
+
+    @Modifying
+    @Query("update InboxMessage m set m.status = :to where m.status = :from")
+    public int updateStatus(@Param("from") InboxMessage.Status from, @Param("to") InboxMessage.Status to);
+
+    @Modifying
+    @Query("delete from InboxMessage m where m.completedAt < :before")
+    public int deleteCompletedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,9 @@
+package nl.quintor.studybits.repository;
+
+import nl.quintor.studybits.entity.LedgerState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerStateRepository extends JpaRepository<LedgerState, String> {
+}
@@ -2,10 +2,23 @@ package nl.quintor.studybits.repository;
 
 import nl.quintor.studybits.entity.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     public Student getStudentByStudentId(String studentId);
     public Student getStudentByStudentDid(String studentDid);
+
+    @Query("select s.studentId from Student s where s.studentId in :studentIds")
+    public Set<String> findExistingStudentIds(@Param("studentIds") Collection<String> studentIds);
+
+    @Modifying
+    @Query("update Student s set s.transcript.proven = true where s.id = :id")
+    public int proveTranscript(@Param("id") long id);
 }
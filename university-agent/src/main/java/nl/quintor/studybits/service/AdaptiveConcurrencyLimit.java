@@ -0,0 +1,63 @@
+package nl.quintor.studybits.service;
+
+/**
+ * A limit on the requests in progress that follows their latency, adjusted once per window of a limit's worth of
+ * completed requests: it grows by one when the window's 90th percentile latency is within the target, and shrinks by
+ * a tenth when it isn't. So when the ledger or libindy slows down, fewer requests are let in, instead of all of them
+ * queueing and timing out, while a few slow requests don't bring the limit down.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF = 0.9;
+    private static final double SLOW_FRACTION = 0.1;
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final long targetLatencyNanos;
+    private double limit;
+    private int inFlight = 0;
+    private int windowCompleted = 0;
+    private int windowSlow = 0;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release(long latencyNanos) {
+        inFlight--;
+        windowCompleted++;
+        if (latencyNanos > targetLatencyNanos) {
+            windowSlow++;
+        }
+        if (windowCompleted < (int) limit) {
+            return;
+        }
+
+        if (windowSlow > windowCompleted * SLOW_FRACTION) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+        }
+        else {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        windowCompleted = 0;
+        windowSlow = 0;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
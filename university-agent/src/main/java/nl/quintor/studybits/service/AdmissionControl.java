@@ -0,0 +1,142 @@
+package nl.quintor.studybits.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.exceptions.TooManyRequestsException;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds load before any decryption starts: token buckets per source IP and per DID and message type, and an
+ * {@link AdaptiveConcurrencyLimit} on all agent requests. The DID limits are configured per message type, by the last
+ * part of its URN, with {@code nl.quintor.studybits.admission.did.<type>.rate-per-second} and {@code .burst}, falling
+ * back to {@code nl.quintor.studybits.admission.did.rate-per-second} and {@code .burst}. Rejections are counted in
+ * {@code studybits.admission.rejected}.
+ */
+@Component
+@Slf4j
+public class AdmissionControl {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private Environment environment;
+
+    @Value("${nl.quintor.studybits.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${nl.quintor.studybits.admission.ip.rate-per-second:200}")
+    private double ipRatePerSecond;
+
+    @Value("${nl.quintor.studybits.admission.ip.burst:400}")
+    private double ipBurst;
+
+    @Value("${nl.quintor.studybits.admission.did.rate-per-second:5}")
+    private double didRatePerSecond;
+
+    @Value("${nl.quintor.studybits.admission.did.burst:20}")
+    private double didBurst;
+
+    @Value("${nl.quintor.studybits.admission.max-clients:100000}")
+    private long maxClients;
+
+    @Value("${nl.quintor.studybits.admission.concurrency.initial-limit:64}")
+    private int initialLimit;
+
+    @Value("${nl.quintor.studybits.admission.concurrency.min-limit:8}")
+    private int minLimit;
+
+    @Value("${nl.quintor.studybits.admission.concurrency.max-limit:512}")
+    private int maxLimit;
+
+    @Value("${nl.quintor.studybits.admission.concurrency.target-latency-ms:1000}")
+    private long targetLatencyMillis;
+
+    private Cache<String, TokenBucket> ipBuckets;
+    private Cache<String, TokenBucket> didBuckets;
+    private final Map<String, double[]> didLimitsByURN = new ConcurrentHashMap<>();
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
+    @PostConstruct
+    public void init() {
+        // A client that stayed away for a minute has a full bucket again anyway
+        ipBuckets = Caffeine.newBuilder().maximumSize(maxClients).expireAfterAccess(1, TimeUnit.MINUTES).build();
+        didBuckets = Caffeine.newBuilder().maximumSize(maxClients).expireAfterAccess(1, TimeUnit.MINUTES).build();
+        concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis));
+
+        Gauge.builder("studybits.admission.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Agent requests let in at once, adapted to their latency")
+                .register(meterRegistry);
+        Gauge.builder("studybits.admission.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean admitIp(String ip) {
+        if (!enabled || ipBuckets.get(ip, ignored -> new TokenBucket(ipRatePerSecond, ipBurst)).tryAcquire()) {
+            return true;
+        }
+        rejected("ip", "");
+        return false;
+    }
+
+    /**
+     * Throws a {@link TooManyRequestsException} when the DID sent too many envelopes of this message type.
+     */
+    public void admit(MessageEnvelope messageEnvelope) {
+        if (!enabled) {
+            return;
+        }
+
+        String urn = messageEnvelope.getMessageType().getURN();
+        double[] limits = didLimitsByURN.computeIfAbsent(urn, this::didLimits);
+        TokenBucket bucket = didBuckets.get(messageEnvelope.getDid() + " " + urn, ignored -> new TokenBucket(limits[0], limits[1]));
+        if (!bucket.tryAcquire()) {
+            rejected("did", urn);
+            throw new TooManyRequestsException("Too many " + urn + " messages from " + messageEnvelope.getDid());
+        }
+    }
+
+    public boolean tryAcquireConcurrency() {
+        if (!enabled || concurrencyLimit.tryAcquire()) {
+            return true;
+        }
+        rejected("concurrency", "");
+        return false;
+    }
+
+    public void releaseConcurrency(long latencyNanos) {
+        if (enabled) {
+            concurrencyLimit.release(latencyNanos);
+        }
+    }
+
+    private double[] didLimits(String urn) {
+        String type = StringUtils.substringAfterLast(urn, "/");
+        String prefix = "nl.quintor.studybits.admission.did." + type;
+        double[] limits = {
+                environment.getProperty(prefix + ".rate-per-second", Double.class, didRatePerSecond),
+                environment.getProperty(prefix + ".burst", Double.class, didBurst)
+        };
+        log.debug("Admitting {} {} per second per DID, in bursts of {}", type, limits[0], limits[1]);
+        return limits;
+    }
+
+    private void rejected(String reason, String messageType) {
+        meterRegistry.counter("studybits.admission.rejected", "reason", reason, "messageType", messageType).increment();
+    }
+}
@@ -2,133 +2,71 @@ package nl.quintor.studybits.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
-import nl.quintor.studybits.entity.Student;
-import nl.quintor.studybits.indy.wrapper.Issuer;
-import nl.quintor.studybits.indy.wrapper.TrustAnchor;
-import nl.quintor.studybits.indy.wrapper.Verifier;
+import nl.quintor.studybits.handler.MessageHandlerRegistry;
+import nl.quintor.studybits.indy.ConnectionAcceptor;
+import nl.quintor.studybits.indy.EnvelopeCodec;
 import nl.quintor.studybits.indy.wrapper.dto.*;
 import nl.quintor.studybits.indy.wrapper.message.*;
-import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
-import org.apache.commons.lang3.NotImplementedException;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
 import org.hyperledger.indy.sdk.IndyException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import org.springframework.security.access.AccessDeniedException;
-import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-
-import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.*;
-import static nl.quintor.studybits.messages.StudyBitsMessageTypes.EXCHANGE_POSITIONS;
+import java.util.concurrent.Executor;
 
 @Service
 @Slf4j
 public class AgentService {
     @Autowired
-    private TrustAnchor universityTrustAnchor;
+    private ConnectionAcceptor connectionAcceptor;
     @Autowired
-    private Issuer universityIssuer;
+    private StudentService studentService;
     @Autowired
-    private Verifier universityVerifier;
+    private MessageHandlerRegistry messageHandlerRegistry;
     @Autowired
-    private StudentService studentService;
+    private EnvelopeCodec envelopeCodec;
     @Autowired
-    private CredentialDefinitionService credentialDefinitionService;
+    private ReplayCache replayCache;
     @Autowired
-    private ExchangePositionService exchangePositionService;
+    private MessageLanes messageLanes;
     @Autowired
-    private MessageEnvelopeCodec messageEnvelopeCodec;
-
-    @Value("${nl.quintor.studybits.university.name}")
-    private String universityName;
-
-    public MessageEnvelope processMessage(MessageEnvelope messageEnvelope) throws IndyException, ExecutionException, InterruptedException, IOException {
-        String messageTypeURN = messageEnvelope.getMessageType().getURN();
-
-        if (messageTypeURN.equals(GET_REQUEST.getURN())) {
-            MessageEnvelope<String> envelopeType = MessageEnvelope.convertEnvelope(messageEnvelope, GET_REQUEST);
-            MessageType requestedMessageType = MessageTypes.forURN(messageEnvelopeCodec.decryptMessage(envelopeType).get());
+    private Executor agentExecutor;
 
-            if(requestedMessageType.equals(CREDENTIAL_OFFERS)) {
-                return getCredentialOffers(messageEnvelope.getDid());
+    public CompletableFuture<MessageEnvelope> processMessage(MessageEnvelope messageEnvelope) throws IndyException, ExecutionException, InterruptedException, IOException {
+        // A retry is answered from the replay cache without waiting in the lane behind the original
+        return replayCache.process(messageEnvelope, envelope -> {
+            if (!IndyMessageTypes.GET_REQUEST.getURN().equals(envelope.getMessageType().getURN())) {
+                return messageLanes.process(envelope, messageHandlerRegistry::dispatch);
             }
-            else if(requestedMessageType.equals(EXCHANGE_POSITIONS)) {
-                return exchangePositionService.getAll(messageEnvelope.getDid());
-            }
-        }
-        else if (messageTypeURN.equals(CREDENTIAL_REQUEST.getURN())) {
-            return handleCredentialRequest(MessageEnvelope.convertEnvelope(messageEnvelope, CREDENTIAL_REQUEST));
-        }
-        else if (messageTypeURN.equals(PROOF.getURN())) {
-            return handleProof(MessageEnvelope.convertEnvelope(messageEnvelope, PROOF));
-        }
 
-        throw new NotImplementedException("Processing of message type not supported: " + messageEnvelope.getMessageType());
+            // The requested message type is decrypted before the GET_REQUEST's turn, so that a request that doesn't
+            // have to wait for the messages before it, like polling for proof statuses, doesn't
+            String did = envelope.getDid();
+            CompletableFuture<String> requestedURN = envelopeCodec.decryptMessage(MessageEnvelope.convertEnvelope(envelope, IndyMessageTypes.GET_REQUEST));
+            return messageLanes.process(envelope, requestedURN.thenApply(messageHandlerRegistry::isOrdered), ignored ->
+                    requestedURN.thenComposeAsync(AsyncUtil.wrapException(urn -> messageHandlerRegistry.dispatchGetRequest(did, urn)), agentExecutor));
+        });
     }
 
     // Student sets up a connection with university agent
-    public MessageEnvelope<ConnectionResponse> login(MessageEnvelope<ConnectionRequest> messageEnvelope) throws IndyException, ExecutionException, InterruptedException, JsonProcessingException, AccessDeniedException {
-        ConnectionRequest connectionRequest = messageEnvelopeCodec.decryptMessage(messageEnvelope).get();
-
-        //Get studentID / current user
+    public CompletableFuture<MessageEnvelope<ConnectionResponse>> login(MessageEnvelope<ConnectionRequest> messageEnvelope) throws IndyException, ExecutionException, InterruptedException, JsonProcessingException, AccessDeniedException {
+        //Get studentID / current user, before leaving the request thread
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String studentId = auth.getName();
 
-        ConnectionResponse connectionResponse = universityTrustAnchor.acceptConnectionRequest(connectionRequest).get();
-
-        studentService.setStudentDid(studentId, connectionRequest.getDid());
-        return messageEnvelopeCodec.encryptMessage(connectionResponse, IndyMessageTypes.CONNECTION_RESPONSE, connectionRequest.getDid()).get();
-    }
-
-    public MessageEnvelope<CredentialOfferList> getCredentialOffers(String did) throws JsonProcessingException, IndyException, ExecutionException, InterruptedException {
-        CredentialOfferList credentialOffers = new CredentialOfferList();
-        Student student = studentService.getStudentByStudentDid(did);
-
-        if (student.getTranscript() != null && !student.getTranscript().isProven()) {
-            CredentialOffer credentialOffer = universityIssuer.createCredentialOffer(credentialDefinitionService.getCredentialDefinitionId(), did).get();
-            credentialOffers.addCredentialOffer(credentialOffer);
-            return messageEnvelopeCodec.encryptMessage(credentialOffers, IndyMessageTypes.CREDENTIAL_OFFERS, did).get();
-        }
-
-        return messageEnvelopeCodec.encryptMessage(credentialOffers, IndyMessageTypes.CREDENTIAL_OFFERS, did).get();
-    }
-
-    private MessageEnvelope handleCredentialRequest(MessageEnvelope<CredentialRequest> messageEnvelope) throws IndyException, ExecutionException, InterruptedException, UnsupportedEncodingException, JsonProcessingException {
-        CredentialRequest credentialRequest = messageEnvelopeCodec.decryptMessage(messageEnvelope).get();
-        log.debug("Decrypted request");
-        Student student = studentService.getStudentByStudentDid(messageEnvelope.getDid());
-
-        Map<String, Object> values = new HashMap<>();
-        values.put("first_name", student.getFirstName());
-        values.put("last_name", student.getLastName());
-        values.put("degree", student.getTranscript().getDegree());
-        values.put("average", student.getTranscript().getAverage());
-        values.put("status", student.getTranscript().getStatus());
-
-        CredentialWithRequest credentialWithRequest = universityIssuer.createCredential(credentialRequest, values).get();
-
-        studentService.proveTranscript(student.getStudentId());
-
-        return messageEnvelopeCodec.encryptMessage(credentialWithRequest, IndyMessageTypes.CREDENTIAL, messageEnvelope.getDid()).get();
-    }
-
-    private MessageEnvelope handleProof(MessageEnvelope<Proof> proofEnvelope) throws IndyException, ExecutionException, InterruptedException, IOException {
-        log.debug("Handling proof");
-        Student student = studentService.getStudentByStudentDid(proofEnvelope.getDid());
-        ProofRequest proofRequest = JSONUtil.mapper.readValue(student.getProofRequest(), ProofRequest.class);
-
-        Proof proof = messageEnvelopeCodec.decryptMessage(proofEnvelope).get();
-        log.debug("Proof: {}", proof);
-        List<ProofAttribute> proofAttributes = universityVerifier.getVerifiedProofAttributes(proofRequest, proof, proofEnvelope.getDid()).get();
-
-
-        exchangePositionService.fullfillPosition(student.getExchangePosition().getId());
-        return null;
+        return envelopeCodec.decryptMessage(messageEnvelope)
+                .thenCompose(AsyncUtil.wrapException(connectionRequest -> connectionAcceptor.acceptConnectionRequest(connectionRequest)
+                        .thenApplyAsync(connectionResponse -> {
+                            studentService.setStudentDid(studentId, connectionRequest.getDid());
+                            return connectionResponse;
+                        }, agentExecutor)
+                        .thenCompose(AsyncUtil.wrapException(connectionResponse ->
+                                envelopeCodec.encryptMessage(connectionResponse, IndyMessageTypes.CONNECTION_RESPONSE, connectionRequest.getDid())))));
     }
 }
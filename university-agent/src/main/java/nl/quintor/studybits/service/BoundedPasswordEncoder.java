@@ -0,0 +1,156 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.exceptions.PasswordEncoderBusyException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a bounded pool of its own, so a burst of logins can't occupy every servlet thread with hashing. When the
+ * queue is full, encoding and matching fail right away with a {@link PasswordEncoderBusyException}, and a caller
+ * that waited {@code maxWaitMillis} for a thread gives up with one too. Together with a queue well below the number of
+ * servlet threads, at most threads plus queue capacity servlet threads wait for hashing, and none of them for long.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+    private final Counter rejected;
+    private final Map<String, OperationTimers> timers = new HashMap<>();
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long maxWaitMillis, MeterRegistry meterRegistry) {
+        this.bCryptPasswordEncoder = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        this.maxWaitMillis = maxWaitMillis;
+        this.rejected = Counter.builder("studybits.password.rejected")
+                .description("Password operations rejected because the queue was full or the wait too long")
+                .register(meterRegistry);
+        for (String operation : new String[]{"encode", "matches"}) {
+            timers.put(operation, new OperationTimers(operation, meterRegistry));
+        }
+        new ExecutorServiceMetrics(executor, "passwordEncoder", Tags.empty()).bindTo(meterRegistry);
+        log.debug("BCrypt strength {} on {} threads, queue capacity {}, waiting at most {} ms", strength, threads, queueCapacity, maxWaitMillis);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute("encode", () -> bCryptPasswordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute("matches", () -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * A hash needs upgrading when its cost differs from the configured strength, so changing the strength takes
+     * effect for each student on their next successful login.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Hashes without waiting for the result, failing right away with a {@link PasswordEncoderBusyException} when the
+     * queue is full.
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(timed("encode", () -> bCryptPasswordEncoder.encode(rawPassword)), executor);
+        }
+        catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordEncoderBusyException("Too many password operations in progress, try again later");
+        }
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(String operation, Supplier<T> hashing) {
+        Future<T> result;
+        try {
+            result = executor.submit(timed(operation, hashing)::get);
+        }
+        catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordEncoderBusyException("Too many logins in progress, try again later");
+        }
+
+        try {
+            return result.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            // A cancelled operation that is still queued is never run
+            result.cancel(false);
+            rejected.increment();
+            throw new PasswordEncoderBusyException("Too many logins in progress, try again later");
+        }
+        catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password " + operation, e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Password " + operation + " failed", e.getCause());
+        }
+    }
+
+    private <T> Supplier<T> timed(String operation, Supplier<T> hashing) {
+        OperationTimers operationTimers = timers.get(operation);
+        long submitted = System.nanoTime();
+        return () -> {
+            operationTimers.queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            return operationTimers.hash.record(hashing);
+        };
+    }
+
+    private static class OperationTimers {
+        private final Timer queueWait;
+        private final Timer hash;
+
+        OperationTimers(String operation, MeterRegistry meterRegistry) {
+            this.queueWait = Timer.builder("studybits.password.queue_wait")
+                    .description("Time a password operation waited for a thread")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            this.hash = Timer.builder("studybits.password.hash")
+                    .description("Time taken by BCrypt")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+    }
+}
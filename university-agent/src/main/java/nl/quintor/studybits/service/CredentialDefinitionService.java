@@ -2,28 +2,57 @@ package nl.quintor.studybits.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.Getter;
-import nl.quintor.studybits.indy.wrapper.IndyWallet;
-import nl.quintor.studybits.indy.wrapper.Issuer;
-import nl.quintor.studybits.indy.wrapper.TrustAnchor;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.LedgerState;
+import nl.quintor.studybits.indy.CredentialIssuer;
 import org.hyperledger.indy.sdk.IndyException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.util.concurrent.ExecutionException;
 
+/**
+ * The university's credential definition. Its id is stored with the {@link LedgerState}, so after a restart the
+ * existing definition is used instead of defining it on the ledger again.
+ */
 @Component
+@Slf4j
 public class CredentialDefinitionService {
     @Getter
-    private String credentialDefinitionId;
+    private volatile String credentialDefinitionId;
 
     @Getter
-    private String schemaId;
+    private volatile String schemaId;
 
     @Autowired
-    private Issuer universityIssuer;
+    private CredentialIssuer credentialIssuer;
 
-    public void createCredentialDefintion(String schemaId) throws JsonProcessingException, IndyException, ExecutionException, InterruptedException {
+    @Autowired
+    private LedgerStateService ledgerStateService;
+
+    @PostConstruct
+    public void init() {
+        LedgerState ledgerState = ledgerStateService.getLedgerState();
+        schemaId = ledgerState.getSchemaId();
+        credentialDefinitionId = ledgerState.getCredentialDefinitionId();
+        if (credentialDefinitionId != null) {
+            log.info("Using credential definition {} for schema {}", credentialDefinitionId, schemaId);
+        }
+    }
+
+    public synchronized void createCredentialDefintion(String schemaId) throws JsonProcessingException, IndyException, ExecutionException, InterruptedException {
+        if (schemaId.equals(this.schemaId) && credentialDefinitionId != null) {
+            log.debug("Credential definition for schema {} already exists", schemaId);
+            return;
+        }
+
+        String newCredentialDefinitionId = credentialIssuer.defineCredential(schemaId).get();
+        ledgerStateService.updateLedgerState(ledgerState -> {
+            ledgerState.setSchemaId(schemaId);
+            ledgerState.setCredentialDefinitionId(newCredentialDefinitionId);
+        });
         this.schemaId = schemaId;
-        credentialDefinitionId = universityIssuer.defineCredential(schemaId).get();
+        this.credentialDefinitionId = newCredentialDefinitionId;
     }
 }
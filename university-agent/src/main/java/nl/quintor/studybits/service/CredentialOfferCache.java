@@ -0,0 +1,67 @@
+package nl.quintor.studybits.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.indy.wrapper.dto.CredentialOffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the credential offers handed out per (credential definition, student DID), so wallets polling for
+ * offers don't cause a new offer to be generated by libindy on every request. Offers are grouped per student DID,
+ * so a student's offers expire and are invalidated together.
+ */
+@Component
+@Slf4j
+public class CredentialOfferCache {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nl.quintor.studybits.offer-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${nl.quintor.studybits.offer-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private Cache<String, Map<String, CredentialOffer>> offers;
+
+    @PostConstruct
+    public void init() {
+        offers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, offers, "credentialOffers");
+    }
+
+    public CredentialOffer get(String credentialDefinitionId, String studentDid) {
+        Map<String, CredentialOffer> studentOffers = offers.getIfPresent(studentDid);
+        return studentOffers == null ? null : studentOffers.get(credentialDefinitionId);
+    }
+
+    public void put(String credentialDefinitionId, String studentDid, CredentialOffer credentialOffer) {
+        offers.get(studentDid, did -> new ConcurrentHashMap<>()).put(credentialDefinitionId, credentialOffer);
+    }
+
+    public void invalidate(String studentDid) {
+        if (studentDid == null) {
+            return;
+        }
+        log.debug("Invalidating credential offers for studentDid {}", studentDid);
+        offers.invalidate(studentDid);
+    }
+
+    public void invalidateAll() {
+        offers.invalidateAll();
+    }
+}
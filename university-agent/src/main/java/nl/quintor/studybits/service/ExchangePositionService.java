@@ -5,29 +5,38 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.ExchangeApplication;
 import nl.quintor.studybits.entity.ExchangePosition;
 import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.indy.EnvelopeCodec;
 import nl.quintor.studybits.indy.wrapper.IndyWallet;
 import nl.quintor.studybits.indy.wrapper.dto.AttributeInfo;
 import nl.quintor.studybits.indy.wrapper.dto.Filter;
 import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
 import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
-import nl.quintor.studybits.indy.wrapper.message.MessageEnvelopeCodec;
-import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
-import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
 import nl.quintor.studybits.messages.AuthcryptableExchangePositions;
+import nl.quintor.studybits.messages.ExchangePositionsRequest;
 import nl.quintor.studybits.messages.StudyBitsMessageTypes;
+import nl.quintor.studybits.repository.ExchangeApplicationRepository;
 import nl.quintor.studybits.repository.ExchangePositionRepository;
+import nl.quintor.studybits.repository.StudentRepository;
 import org.hyperledger.indy.sdk.IndyException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.EntityNotFoundException;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -37,20 +46,32 @@ public class ExchangePositionService {
     @Autowired
     private ExchangePositionRepository exchangePositionRepository;
     @Autowired
+    private ExchangeApplicationRepository exchangeApplicationRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
     private IdentityService identityService;
     @Autowired
     private StudentService studentService;
     @Autowired
-    private MessageEnvelopeCodec universityCodec;
+    private EnvelopeCodec envelopeCodec;
+    @Autowired
+    private ProofRequestTemplateCatalog proofRequestTemplateCatalog;
 
-    private static final Random random = new Random();
+    @Value("${nl.quintor.studybits.exchange-positions.page-size:100}")
+    private int defaultPageSize;
 
+    @Value("${nl.quintor.studybits.exchange-positions.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Stores the position with a proof request template without a nonce, every application gets a random one.
+     */
     @Transactional
     public void createExchangePosition(String credDefId) throws JsonProcessingException {
         List<Filter> transcriptFilter = Collections.singletonList(new Filter(credDefId));
         ProofRequest exchangePositionProofRequest = ProofRequest.builder()
                 .name("ExchangePosition")
-                .nonce("1432422343242122312411212")
                 .version("0.1")
                 .requestedAttribute("attr1_referent", new AttributeInfo("first_name", Optional.of(transcriptFilter)))
                 .requestedAttribute("attr2_referent", new AttributeInfo("last_name", Optional.of(transcriptFilter)))
@@ -63,18 +84,52 @@ public class ExchangePositionService {
         exchangePosition.setProofRequestTemplate(exchangePositionProofRequest.toJSON());
         exchangePosition.setFulfilled(false);
         exchangePositionRepository.saveAndFlush(exchangePosition);
+        proofRequestTemplateCatalog.invalidate();
     }
 
+    /**
+     * The student's PENDING applications for the positions, oldest first.
+     */
     @Transactional
-    public void fullfillPosition(long id) {
-        ExchangePosition exchangePosition = exchangePositionRepository.getOne(id);
-        exchangePosition.setFulfilled(true);
-        exchangePositionRepository.saveAndFlush(exchangePosition);
+    public List<ExchangeApplication> findPendingApplications(String did, Collection<Long> exchangePositionIds) {
+        if (exchangePositionIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return exchangeApplicationRepository.findByStudentDidAndStatusAndExchangePositionIdInOrderById(did, ExchangeApplication.Status.PENDING, exchangePositionIds);
     }
 
+    /**
+     * Records that a proof for the application's proof request was accepted. The application is locked while doing
+     * so, and a proof for an application that was fulfilled in the meantime is denied.
+     */
+    @Transactional
+    public void fulfillApplication(long exchangeApplicationId) {
+        ExchangeApplication exchangeApplication = exchangeApplicationRepository.findByIdForUpdate(exchangeApplicationId)
+                .orElseThrow(() -> new EntityNotFoundException("No exchange application " + exchangeApplicationId));
+        if (exchangeApplication.getStatus() != ExchangeApplication.Status.PENDING) {
+            throw new AccessDeniedException("Exchange application " + exchangeApplicationId + " was already fulfilled");
+        }
+        exchangeApplication.setStatus(ExchangeApplication.Status.FULFILLED);
+        exchangeApplication.getExchangePosition().setFulfilled(true);
+        proofRequestTemplateCatalog.positionsChanged();
+    }
+
+    /**
+     * The first page of positions, see {@link #getPage}.
+     */
+    @Transactional
+    public CompletableFuture<MessageEnvelope<AuthcryptableExchangePositions>> getAll(String did) throws JsonProcessingException, IndyException, ExecutionException, InterruptedException {
+        return getPage(did, new ExchangePositionsRequest());
+    }
 
+    /**
+     * Lists a page of positions with the proof request of the student's application for each. Applications are
+     * created, with a random nonce, for positions the student is shown for the first time, so listing again writes
+     * nothing and sends the same proof requests. A request from the start carrying the current catalog version is
+     * answered "not modified" without reading positions.
+     */
     @Transactional
-    public MessageEnvelope<AuthcryptableExchangePositions> getAll(String did) throws JsonProcessingException, IndyException, ExecutionException, InterruptedException {
+    public CompletableFuture<MessageEnvelope<AuthcryptableExchangePositions>> getPage(String did, ExchangePositionsRequest request) throws JsonProcessingException, IndyException, ExecutionException, InterruptedException {
 
         log.debug("Getting exchange positions for studentDid {}", did);
 
@@ -84,19 +139,62 @@ public class ExchangePositionService {
             throw new AccessDeniedException("Need to be authenticated");
         }
 
-        List<ExchangePositionDto> exchangePositionDtos = exchangePositionRepository.findAll()
-                .stream()
-                .map(AsyncUtil.wrapException(exchangePosition -> {
-                    ProofRequest proofRequest = JSONUtil.mapper.readValue(exchangePosition.getProofRequestTemplate(), ProofRequest.class);
+        // Read before the positions, so a change while listing makes the next request list again
+        String catalogVersion = proofRequestTemplateCatalog.getVersion();
+        if (request.getCursor() == null && catalogVersion.equals(request.getCatalogVersion())) {
+            return envelopeCodec.encryptMessage(AuthcryptableExchangePositions.notModified(catalogVersion), StudyBitsMessageTypes.EXCHANGE_POSITIONS, student.getStudentDid());
+        }
+
+        int pageSize = request.getPageSize() == null ? defaultPageSize : Math.max(1, Math.min(request.getPageSize(), maxPageSize));
+        long cursor = request.getCursor() == null ? 0 : request.getCursor();
+        // One more than the page, to know whether there is a next page
+        List<ExchangePosition> exchangePositions = exchangePositionRepository.findByIdGreaterThanOrderById(cursor, PageRequest.of(0, pageSize + 1));
+        Long nextCursor = null;
+        if (exchangePositions.size() > pageSize) {
+            exchangePositions = exchangePositions.subList(0, pageSize);
+            nextCursor = exchangePositions.get(pageSize - 1).getId();
+        }
+
+        Map<Long, String> nonces = getOrCreateApplications(student, exchangePositions);
+        List<ExchangePositionDto> exchangePositionDtos = new ArrayList<>(exchangePositions.size());
+        for (ExchangePosition exchangePosition : exchangePositions) {
+            ProofRequest proofRequest = proofRequestTemplateCatalog.createProofRequest(exchangePosition, nonces.get(exchangePosition.getId()));
+            exchangePositionDtos.add(new ExchangePositionDto(exchangePosition.getName(), proofRequest, exchangePosition.isFulfilled()));
+        }
+
+        return envelopeCodec.encryptMessage(new AuthcryptableExchangePositions(exchangePositionDtos, catalogVersion, nextCursor, false), StudyBitsMessageTypes.EXCHANGE_POSITIONS, student.getStudentDid());
+    }
+
+    /**
+     * The nonce of the student's application for each position, by position id. Applications are read in one query
+     * and the missing ones inserted in one batch.
+     */
+    private Map<Long, String> getOrCreateApplications(Student student, List<ExchangePosition> exchangePositions) throws JsonProcessingException {
+        Map<Long, String> nonces = new HashMap<>();
+        if (exchangePositions.isEmpty()) {
+            return nonces;
+        }
 
-                    proofRequest.setNonce(Long.toString(Math.abs(random.nextLong())));
-                    exchangePosition.setStudentDid(student.getStudentDid());
-                    studentService.setExchangePositionData(did, proofRequest.toJSON(), exchangePosition);
-                    return  new ExchangePositionDto(exchangePosition.getName(), proofRequest, exchangePosition.isFulfilled());
-                }))
-                .collect(Collectors.toList());
+        List<Long> exchangePositionIds = exchangePositions.stream().map(ExchangePosition::getId).collect(Collectors.toList());
+        for (ExchangeApplication exchangeApplication : exchangeApplicationRepository.findByStudentDidAndExchangePositionIdIn(student.getStudentDid(), exchangePositionIds)) {
+            nonces.putIfAbsent(exchangeApplication.getExchangePosition().getId(), exchangeApplication.getNonce());
+        }
 
-        return universityCodec.encryptMessage(new AuthcryptableExchangePositions(exchangePositionDtos), StudyBitsMessageTypes.EXCHANGE_POSITIONS, student.getStudentDid()).get();
+        List<ExchangeApplication> created = new ArrayList<>();
+        for (ExchangePosition exchangePosition : exchangePositions) {
+            if (!nonces.containsKey(exchangePosition.getId())) {
+                String nonce = proofRequestTemplateCatalog.createNonce();
+                ProofRequest proofRequest = proofRequestTemplateCatalog.createProofRequest(exchangePosition, nonce);
+                created.add(new ExchangeApplication(0, studentRepository.getOne(student.getId()), student.getStudentDid(),
+                        exchangePosition, nonce, proofRequest.toJSON(), ExchangeApplication.Status.PENDING));
+                nonces.put(exchangePosition.getId(), nonce);
+            }
+        }
+        if (!created.isEmpty()) {
+            exchangeApplicationRepository.saveAll(created);
+            log.debug("Created {} exchange applications for studentDid {}", created.size(), student.getStudentDid());
+        }
+        return nonces;
     }
 
     @Data
@@ -0,0 +1,146 @@
+package nl.quintor.studybits.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import nl.quintor.studybits.entity.InboxMessage;
+import nl.quintor.studybits.exceptions.InboxDisabledException;
+import nl.quintor.studybits.exceptions.InboxMessageNotFoundException;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import nl.quintor.studybits.repository.InboxMessageRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The durable inbox: envelopes are stored when they are posted and processed later by the {@link InboxWorker}, so
+ * accepted envelopes survive a slow ledger and a restart. Envelopes are processed at least once, one that was being
+ * processed during a crash is processed again after the restart.
+ */
+@Component
+public class InboxService {
+    @Autowired
+    private InboxMessageRepository inboxMessageRepository;
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Value("${nl.quintor.studybits.inbox.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores an envelope for processing as JSON, whatever format it was posted in, after checking that it is within
+     * the limits of its DID.
+     */
+    @Transactional
+    public InboxResultDto enqueue(MessageEnvelope messageEnvelope) throws IOException {
+        if (!enabled) {
+            throw new InboxDisabledException("The inbox is not enabled");
+        }
+        admissionControl.admit(messageEnvelope);
+
+        InboxMessage inboxMessage = new InboxMessage();
+        inboxMessage.setEnvelope(messageEnvelope.toJSON());
+        inboxMessage.setStatus(InboxMessage.Status.QUEUED);
+        inboxMessage.setReceivedAt(Instant.now());
+        return InboxResultDto.from(inboxMessageRepository.save(inboxMessage));
+    }
+
+    @Transactional
+    public InboxResultDto getResult(long id) {
+        return inboxMessageRepository.findById(id)
+                .map(InboxResultDto::from)
+                .orElseThrow(() -> new InboxMessageNotFoundException("No inbox message " + id));
+    }
+
+    /**
+     * Claims the oldest queued envelopes with one select and one update.
+     */
+    @Transactional
+    public List<InboxMessage> claim(int maxMessages) {
+        List<InboxMessage> inboxMessages = inboxMessageRepository.findByStatusOrderById(InboxMessage.Status.QUEUED, PageRequest.of(0, maxMessages));
+        if (!inboxMessages.isEmpty()) {
+            inboxMessageRepository.updateStatus(inboxMessages.stream().map(InboxMessage::getId).collect(Collectors.toList()), InboxMessage.Status.CLAIMED);
+        }
+        return inboxMessages;
+    }
+
+    /**
+     * Records the outcome of processed envelopes, in one batch of updates.
+     */
+    @Transactional
+    public void complete(List<Completion> completions) {
+        Map<Long, Completion> completionsById = completions.stream()
+                .collect(Collectors.toMap(Completion::getId, Function.identity()));
+        Instant now = Instant.now();
+
+        for (InboxMessage inboxMessage : inboxMessageRepository.findAllById(completionsById.keySet())) {
+            Completion completion = completionsById.get(inboxMessage.getId());
+            inboxMessage.setStatus(completion.getStatus());
+            inboxMessage.setResponse(completion.getResponse());
+            inboxMessage.setError(StringUtils.abbreviate(completion.getError(), 1000));
+            inboxMessage.setCompletedAt(now);
+        }
+    }
+
+    /**
+     * Puts envelopes that were claimed when the agent stopped back in the queue.
+     */
+    @Transactional
+    public int requeueClaimed() {
+        return inboxMessageRepository.updateStatus(InboxMessage.Status.CLAIMED, InboxMessage.Status.QUEUED);
+    }
+
+    @Transactional
+    public int deleteCompletedBefore(Instant before) {
+        return inboxMessageRepository.deleteCompletedBefore(before);
+    }
+
+    public long countQueued() {
+        return inboxMessageRepository.countByStatus(InboxMessage.Status.QUEUED);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Completion {
+        private long id;
+        private InboxMessage.Status status;
+        private String response;
+        private String error;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InboxResultDto {
+        private long id;
+        private InboxMessage.Status status;
+        private JsonNode response;
+        private String error;
+
+        static InboxResultDto from(InboxMessage inboxMessage) {
+            try {
+                JsonNode response = inboxMessage.getResponse() == null ? null : JSONUtil.mapper.readTree(inboxMessage.getResponse());
+                return new InboxResultDto(inboxMessage.getId(), inboxMessage.getStatus(), response, inboxMessage.getError());
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Stored response of inbox message " + inboxMessage.getId() + " is not JSON", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.InboxMessage;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Drains the {@link InboxService} inbox on one background thread. It claims queued envelopes in id order and hands them
+ * to {@link AgentService#processMessage}, with at most {@code workers} in progress. The envelopes of a DID are
+ * processed one after another, in the order they were posted. Outcomes are written back in batches. An envelope
+ * rejected because the agent is busy (503) stays claimed and is retried after a growing delay, and the later envelopes
+ * of its DID wait for it.
+ */
+@Component
+@Slf4j
+public class InboxWorker {
+    @Autowired
+    private InboxService inboxService;
+    @Autowired
+    private AgentService agentService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nl.quintor.studybits.inbox.workers:16}")
+    private int workers;
+
+    @Value("${nl.quintor.studybits.inbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${nl.quintor.studybits.inbox.poll-interval-ms:100}")
+    private long pollIntervalMillis;
+
+    @Value("${nl.quintor.studybits.inbox.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${nl.quintor.studybits.inbox.retry-delay-ms:500}")
+    private long retryDelayMillis;
+
+    @Value("${nl.quintor.studybits.inbox.max-retry-delay-ms:10000}")
+    private long maxRetryDelayMillis;
+
+    @Value("${nl.quintor.studybits.inbox.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    private final Queue<InboxService.Completion> completions = new ConcurrentLinkedQueue<>();
+    // The last envelope of each DID that is in progress. Set by the draining thread, and removed by the thread that
+    // completes the envelope unless a later envelope of the DID was set in the meantime
+    private final Map<String, CompletableFuture<Void>> lastByDid = new ConcurrentHashMap<>();
+    private Semaphore permits;
+    private volatile boolean running = false;
+
+    @EventListener
+    public void start(ApplicationReadyEvent event) {
+        if (!inboxService.isEnabled()) {
+            return;
+        }
+
+        int requeued = inboxService.requeueClaimed();
+        log.info("Starting inbox with {} workers, {} envelopes claimed before the restart are queued again", workers, requeued);
+        Gauge.builder("studybits.inbox.depth", inboxService, InboxService::countQueued)
+                .description("Envelopes in the inbox waiting to be processed")
+                .register(meterRegistry);
+
+        permits = new Semaphore(workers);
+        running = true;
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("inbox-");
+        executor.setDaemon(true);
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Waits up to {@code shutdown-timeout-ms} for the envelopes in progress and writes the outcomes that weren't written
+     * yet, so they aren't processed again after a restart.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (!permits.tryAcquire(workers, shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Stopping the inbox with envelopes in progress, they are processed again after a restart");
+        }
+        flushCompletions();
+    }
+
+    private void drain() {
+        long lastCleanup = System.nanoTime();
+        while (running) {
+            try {
+                flushCompletions();
+                if (System.nanoTime() - lastCleanup > TimeUnit.MINUTES.toNanos(1)) {
+                    inboxService.deleteCompletedBefore(Instant.now().minus(retentionMinutes, ChronoUnit.MINUTES));
+                    lastCleanup = System.nanoTime();
+                }
+
+                int available = Math.min(permits.availablePermits(), batchSize);
+                List<InboxMessage> claimed = available == 0 ? Collections.emptyList() : inboxService.claim(available);
+                if (claimed.isEmpty()) {
+                    Thread.sleep(pollIntervalMillis);
+                }
+                claimed.forEach(this::process);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (RuntimeException e) {
+                log.error("Draining the inbox failed", e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(InboxMessage inboxMessage) {
+        MessageEnvelope messageEnvelope;
+        try {
+            messageEnvelope = MessageEnvelope.parseFromString(inboxMessage.getEnvelope());
+        }
+        catch (Exception e) {
+            completions.add(complete(inboxMessage.getId(), null, e));
+            return;
+        }
+
+        permits.acquireUninterruptibly();
+        String did = messageEnvelope.getDid();
+        CompletableFuture<Void> processed = new CompletableFuture<>();
+        CompletableFuture<Void> previous = lastByDid.put(did, processed);
+        (previous != null ? previous : CompletableFuture.<Void>completedFuture(null))
+                .thenCompose(ignored -> attempt(inboxMessage.getId(), messageEnvelope, 0))
+                .whenComplete((ignored, e) -> {
+                    lastByDid.remove(did, processed);
+                    permits.release();
+                    processed.complete(null);
+                });
+    }
+
+    private CompletableFuture<Void> attempt(long id, MessageEnvelope messageEnvelope, int retries) {
+        CompletableFuture<MessageEnvelope> response;
+        try {
+            response = agentService.processMessage(messageEnvelope);
+        }
+        catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        return response.handle((responseEnvelope, throwable) -> {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            if (cause != null && isBusy(cause)) {
+                long delayMillis = Math.min(retryDelayMillis << Math.min(retries, 16), maxRetryDelayMillis);
+                log.debug("Agent busy with inbox message {}, retrying in {} ms", id, delayMillis);
+                meterRegistry.counter("studybits.inbox.processed", "result", "retried").increment();
+                Executor delayed = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS);
+                return CompletableFuture.runAsync(() -> { }, delayed).thenCompose(ignored -> attempt(id, messageEnvelope, retries + 1));
+            }
+            completions.add(complete(id, responseEnvelope, cause));
+            return CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(Function.identity());
+    }
+
+    private InboxService.Completion complete(long id, MessageEnvelope messageEnvelope, Throwable cause) {
+        InboxService.Completion completion;
+        if (cause == null) {
+            try {
+                completion = new InboxService.Completion(id, InboxMessage.Status.DONE, messageEnvelope == null ? null : messageEnvelope.toJSON(), null);
+            }
+            catch (Exception e) {
+                completion = new InboxService.Completion(id, InboxMessage.Status.FAILED, null, e.toString());
+            }
+        }
+        else {
+            log.debug("Inbox message {} failed", id, cause);
+            completion = new InboxService.Completion(id, InboxMessage.Status.FAILED, null, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+
+        meterRegistry.counter("studybits.inbox.processed", "result", completion.getStatus().name().toLowerCase()).increment();
+        return completion;
+    }
+
+    private void flushCompletions() {
+        List<InboxService.Completion> batch = new ArrayList<>();
+        InboxService.Completion completion;
+        while ((completion = completions.poll()) != null) {
+            batch.add(completion);
+        }
+        if (!batch.isEmpty()) {
+            try {
+                inboxService.complete(batch);
+            }
+            catch (RuntimeException e) {
+                completions.addAll(batch);
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isBusy(Throwable cause) {
+        ResponseStatus responseStatus = AnnotationUtils.findAnnotation(cause.getClass(), ResponseStatus.class);
+        return responseStatus != null && responseStatus.value() == HttpStatus.SERVICE_UNAVAILABLE;
+    }
+}
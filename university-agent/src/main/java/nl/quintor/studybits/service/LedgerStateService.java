@@ -0,0 +1,32 @@
+package nl.quintor.studybits.service;
+
+import nl.quintor.studybits.entity.LedgerState;
+import nl.quintor.studybits.repository.LedgerStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.function.Consumer;
+
+@Component
+public class LedgerStateService {
+    @Autowired
+    private LedgerStateRepository ledgerStateRepository;
+
+    @Value("${nl.quintor.studybits.university.name}")
+    private String universityName;
+
+    @Transactional
+    public LedgerState getLedgerState() {
+        return ledgerStateRepository.findById(universityName)
+                .orElseGet(() -> new LedgerState(universityName, false, null, null, null));
+    }
+
+    @Transactional
+    public void updateLedgerState(Consumer<LedgerState> update) {
+        LedgerState ledgerState = getLedgerState();
+        update.accept(ledgerState);
+        ledgerStateRepository.save(ledgerState);
+    }
+}
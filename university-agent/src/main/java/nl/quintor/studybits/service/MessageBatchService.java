@@ -0,0 +1,93 @@
+package nl.quintor.studybits.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.exceptions.BatchTooLargeException;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class MessageBatchService {
+    @Autowired
+    private AgentService agentService;
+    @Autowired
+    private Executor agentExecutor;
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Value("${nl.quintor.studybits.agent.batch.max-size:100}")
+    private int maxBatchSize;
+
+    /**
+     * Processes a batch of envelopes, returning one result per envelope in the order they were given.
+     * Envelopes for different DIDs are processed concurrently, envelopes for the same DID one after another.
+     */
+    public CompletableFuture<List<MessageResultDto>> processMessages(List<JsonNode> messages) {
+        if (messages.size() > maxBatchSize) {
+            throw new BatchTooLargeException("Batch of " + messages.size() + " messages exceeds maximum of " + maxBatchSize);
+        }
+
+        Map<String, CompletableFuture<MessageEnvelope>> lastMessageByDid = new HashMap<>();
+        List<CompletableFuture<MessageResultDto>> results = new ArrayList<>(messages.size());
+
+        for (JsonNode message : messages) {
+            MessageEnvelope messageEnvelope;
+            try {
+                messageEnvelope = JSONUtil.mapper.treeToValue(message, MessageEnvelope.class);
+                admissionControl.admit(messageEnvelope);
+            }
+            catch (Exception e) {
+                results.add(CompletableFuture.completedFuture(MessageResultDto.failure(e)));
+                continue;
+            }
+
+            CompletableFuture<MessageEnvelope> previous = lastMessageByDid.getOrDefault(messageEnvelope.getDid(), CompletableFuture.completedFuture(null));
+            CompletableFuture<MessageEnvelope> result = previous
+                    .handle((envelope, e) -> null)
+                    .thenComposeAsync(AsyncUtil.wrapException(ignored -> agentService.processMessage(messageEnvelope)), agentExecutor);
+            lastMessageByDid.put(messageEnvelope.getDid(), result);
+
+            results.add(result.handle((envelope, e) -> e == null ? MessageResultDto.success(envelope) : MessageResultDto.failure(e)));
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> results.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MessageResultDto {
+        private MessageEnvelope envelope;
+        private String error;
+
+        static MessageResultDto success(MessageEnvelope envelope) {
+            return new MessageResultDto(envelope, null);
+        }
+
+        static MessageResultDto failure(Throwable throwable) {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            log.debug("Message in batch failed", cause);
+            return new MessageResultDto(null, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+    }
+}
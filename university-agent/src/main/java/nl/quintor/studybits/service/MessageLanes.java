@@ -0,0 +1,142 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.exceptions.LaneBusyException;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes the messages of one DID strictly one after another, and the messages of different DIDs in parallel.
+ * DIDs are hashed onto a fixed number of lanes, and a message starts when the previous message on its lane has
+ * completed. A lane holds at most {@code max-depth} messages, running or waiting; more are rejected.
+ */
+@Component
+@Slf4j
+public class MessageLanes {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private Executor agentExecutor;
+
+    @Value("${nl.quintor.studybits.lanes.count:64}")
+    private int laneCount;
+
+    @Value("${nl.quintor.studybits.lanes.max-depth:16}")
+    private int maxDepth;
+
+    private Lane[] lanes;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane();
+            lanes[i] = lane;
+            Gauge.builder("studybits.lane.depth", lane.depth, AtomicInteger::get)
+                    .description("Messages running or waiting on a lane")
+                    .tag("lane", Integer.toString(i))
+                    .register(meterRegistry);
+        }
+        rejected = Counter.builder("studybits.lane.rejected")
+                .description("Messages rejected because their lane was full")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<MessageEnvelope> process(MessageEnvelope messageEnvelope, MessageProcessor processor) throws IndyException, IOException, ExecutionException, InterruptedException {
+        return process(messageEnvelope, CompletableFuture.completedFuture(true), processor);
+    }
+
+    /**
+     * Like {@link #process(MessageEnvelope, MessageProcessor)}, for a message of which it is only known once
+     * {@code ordered} completes whether it has to wait for the messages before it. The message takes its place on the
+     * lane right away, so the messages after it keep their order. One that doesn't have to wait starts as soon as
+     * {@code ordered} completes, and passes its place on once the messages before it have completed.
+     */
+    public CompletableFuture<MessageEnvelope> process(MessageEnvelope messageEnvelope, CompletableFuture<Boolean> ordered, MessageProcessor processor) throws IndyException, IOException, ExecutionException, InterruptedException {
+        Lane lane = getLane(messageEnvelope.getDid());
+        CompletableFuture<MessageEnvelope> result = new CompletableFuture<>();
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        CompletableFuture<?> previous;
+
+        synchronized (lane) {
+            if (lane.depth.get() >= maxDepth) {
+                rejected.increment();
+                throw new LaneBusyException("Too many messages waiting for DID " + messageEnvelope.getDid());
+            }
+            lane.depth.incrementAndGet();
+            previous = lane.tail;
+            lane.tail = released;
+        }
+        released.whenComplete((ignored, e) -> lane.depth.decrementAndGet());
+
+        // When it can't be told whether the message has to wait, it waits, and the processor reports the failure
+        CompletableFuture<?> start = ordered.exceptionally(e -> true).thenCompose(inOrder -> {
+            if (!inOrder) {
+                previous.whenComplete((ignored, e) -> released.complete(null));
+                return CompletableFuture.completedFuture(null);
+            }
+            result.whenComplete((envelope, e) -> released.complete(null));
+            return previous.handle((ignored, e) -> null);
+        });
+
+        if (start.isDone()) {
+            // Nothing to wait for, so run on this thread like any message without a lane
+            try {
+                processor.process(messageEnvelope).whenComplete((envelope, e) -> complete(result, envelope, e));
+            }
+            catch (Exception e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
+        else {
+            start.thenRunAsync(() -> {
+                try {
+                    processor.process(messageEnvelope).whenComplete((envelope, e) -> complete(result, envelope, e));
+                }
+                catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }, agentExecutor).exceptionally(e -> {
+                // The executor rejected the message, don't block the lane
+                complete(result, null, e);
+                return null;
+            });
+        }
+        return result;
+    }
+
+    private Lane getLane(String did) {
+        return lanes[Math.floorMod(Objects.hashCode(did), lanes.length)];
+    }
+
+    private static void complete(CompletableFuture<MessageEnvelope> result, MessageEnvelope messageEnvelope, Throwable throwable) {
+        if (throwable == null) {
+            result.complete(messageEnvelope);
+        }
+        else {
+            result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+        }
+    }
+
+    private static class Lane {
+        private final AtomicInteger depth = new AtomicInteger();
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+    }
+}
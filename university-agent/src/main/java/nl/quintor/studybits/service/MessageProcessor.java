@@ -0,0 +1,16 @@
+package nl.quintor.studybits.service;
+
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.hyperledger.indy.sdk.IndyException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A step of processing an incoming envelope, such as {@link nl.quintor.studybits.handler.MessageHandlerRegistry#dispatch}.
+ */
+@FunctionalInterface
+public interface MessageProcessor {
+    CompletableFuture<MessageEnvelope> process(MessageEnvelope messageEnvelope) throws IndyException, IOException, ExecutionException, InterruptedException;
+}
@@ -0,0 +1,197 @@
+package nl.quintor.studybits.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.ExchangePosition;
+import nl.quintor.studybits.indy.wrapper.dto.Proof;
+import nl.quintor.studybits.indy.wrapper.dto.ProofRequest;
+import nl.quintor.studybits.indy.wrapper.util.AsyncUtil;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import nl.quintor.studybits.repository.ExchangePositionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Parsed proof request templates of all exchange positions, keyed by position id. Templates are shared between
+ * requests and never modified; {@link #createProofRequest} hands out a copy with the nonce of the student's
+ * application.
+ * The catalog version changes whenever a position is added or fulfilled, and starts from the startup time so a
+ * version from before a restart never matches.
+ */
+@Component
+@Slf4j
+public class ProofRequestTemplateCatalog {
+    private static final List<String> PROVEN_SECTIONS = Arrays.asList("revealed_attrs", "unrevealed_attrs", "predicates");
+    // Per thread, so handing out nonces doesn't contend on one generator
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    @Autowired
+    private ExchangePositionRepository exchangePositionRepository;
+
+    private final Map<Long, Template> templates = new ConcurrentHashMap<>();
+    private final String versionPrefix = Long.toString(System.currentTimeMillis(), 36) + ".";
+    private final AtomicLong version = new AtomicLong();
+
+    @EventListener
+    public void load(ContextRefreshedEvent event) {
+        load();
+    }
+
+    /**
+     * The template of the position with the given nonce, see {@link #createNonce}.
+     */
+    public ProofRequest createProofRequest(ExchangePosition exchangePosition, String nonce) {
+        return copy(getTemplate(exchangePosition).proofRequest, nonce);
+    }
+
+    /**
+     * A random nonce for a new application. Indy nonces are decimal numbers of up to 80 bits.
+     */
+    public String createNonce() {
+        return new BigInteger(80, RANDOM.get()).toString();
+    }
+
+    /**
+     * Ids of the positions the proof can be an answer to: it proves exactly the referents of the position's proof
+     * request, each from a credential definition the restrictions allow. Only these are worth verifying, which is
+     * what costs.
+     */
+    public List<Long> findMatchingPositions(Proof proof) {
+        JsonNode proofJson = JSONUtil.mapper.valueToTree(proof);
+
+        return templates.entrySet().stream()
+                .filter(template -> template.getValue().matches(proofJson))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reloads the templates, dropping those of removed positions.
+     */
+    public void invalidate() {
+        load();
+        positionsChanged();
+    }
+
+    public String getVersion() {
+        return versionPrefix + version.get();
+    }
+
+    /**
+     * Changes the version now, and again when the current transaction commits, so a listing that read the positions
+     * before the commit can't be tagged with the new version.
+     */
+    public void positionsChanged() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void load() {
+        List<ExchangePosition> exchangePositions = exchangePositionRepository.findAll();
+        templates.keySet().retainAll(exchangePositions.stream().map(ExchangePosition::getId).collect(Collectors.toSet()));
+        exchangePositions.forEach(this::getTemplate);
+        log.debug("Loaded {} proof request templates", templates.size());
+    }
+
+    private Template getTemplate(ExchangePosition exchangePosition) {
+        return templates.computeIfAbsent(exchangePosition.getId(), AsyncUtil.wrapException(id ->
+                new Template(JSONUtil.mapper.readValue(exchangePosition.getProofRequestTemplate(), ProofRequest.class),
+                        readRestrictions(JSONUtil.mapper.readTree(exchangePosition.getProofRequestTemplate())))));
+    }
+
+    private static ProofRequest copy(ProofRequest template, String nonce) {
+        return ProofRequest.builder()
+                .name(template.getName())
+                .version(template.getVersion())
+                .nonce(nonce)
+                .requestedAttributes(template.getRequestedAttributes())
+                .requestedPredicates(template.getRequestedPredicates())
+                .build();
+    }
+
+    /**
+     * The credential definitions allowed per referent of a proof request, empty when any is.
+     */
+    private static Map<String, Set<String>> readRestrictions(JsonNode proofRequest) {
+        Map<String, Set<String>> restrictions = new HashMap<>();
+        for (String section : Arrays.asList("requested_attributes", "requested_predicates")) {
+            Iterator<Map.Entry<String, JsonNode>> referents = proofRequest.path(section).fields();
+            while (referents.hasNext()) {
+                Map.Entry<String, JsonNode> referent = referents.next();
+                Set<String> credentialDefinitionIds = new HashSet<>();
+                for (JsonNode restriction : referent.getValue().path("restrictions")) {
+                    if (!restriction.path("cred_def_id").isTextual()) {
+                        // Restricted on something else, so any credential definition can still match
+                        credentialDefinitionIds = Collections.emptySet();
+                        break;
+                    }
+                    credentialDefinitionIds.add(restriction.path("cred_def_id").asText());
+                }
+                restrictions.put(referent.getKey(), credentialDefinitionIds);
+            }
+        }
+        return restrictions;
+    }
+
+    @AllArgsConstructor
+    private static class Template {
+        private final ProofRequest proofRequest;
+        private final Map<String, Set<String>> restrictions;
+
+        private boolean matches(JsonNode proof) {
+            JsonNode requestedProof = proof.path("requested_proof");
+            JsonNode identifiers = proof.path("identifiers");
+            Set<String> referents = new HashSet<>();
+
+            for (String section : PROVEN_SECTIONS) {
+                Iterator<Map.Entry<String, JsonNode>> proven = requestedProof.path(section).fields();
+                while (proven.hasNext()) {
+                    Map.Entry<String, JsonNode> referent = proven.next();
+                    Set<String> credentialDefinitionIds = restrictions.get(referent.getKey());
+                    String credentialDefinitionId = identifiers.path(referent.getValue().path("sub_proof_index").asInt()).path("cred_def_id").asText();
+                    if (credentialDefinitionIds == null || !credentialDefinitionIds.isEmpty() && !credentialDefinitionIds.contains(credentialDefinitionId)) {
+                        return false;
+                    }
+                    referents.add(referent.getKey());
+                }
+            }
+            Iterator<String> selfAttested = requestedProof.path("self_attested_attrs").fieldNames();
+            while (selfAttested.hasNext()) {
+                String referent = selfAttested.next();
+                if (!restrictions.getOrDefault(referent, Collections.singleton("")).isEmpty()) {
+                    return false;
+                }
+                referents.add(referent);
+            }
+
+            return referents.equals(restrictions.keySet());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package nl.quintor.studybits.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nl.quintor.studybits.messages.ProofStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The status of the proofs each student sent, by DID and then tracking id, until the student hasn't sent or polled
+ * for {@code ttl-seconds}. Only the last {@code max-per-student} proofs of a student are kept. Only kept in memory: after a restart a student finds their fulfilled exchange positions in
+ * the EXCHANGE_POSITIONS message.
+ */
+@Component
+public class ProofStatusService {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nl.quintor.studybits.proof-status.max-size:10000}")
+    private long maxSize;
+
+    @Value("${nl.quintor.studybits.proof-status.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${nl.quintor.studybits.proof-status.max-per-student:100}")
+    private int maxPerStudent;
+
+    private Cache<String, Map<String, ProofStatus>> proofStatusesByDid;
+
+    @PostConstruct
+    public void init() {
+        proofStatusesByDid = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, proofStatusesByDid, "proofStatuses");
+    }
+
+    /**
+     * Starts tracking a new proof of the student, as PENDING.
+     */
+    public ProofStatus track(String did) {
+        ProofStatus proofStatus = new ProofStatus(UUID.randomUUID().toString(), ProofStatus.Status.PENDING);
+        proofStatuses(did).put(proofStatus.getTrackingId(), proofStatus);
+        return proofStatus;
+    }
+
+    /**
+     * Records the outcome, unless the proof was already dropped to make room for newer ones.
+     */
+    public void complete(String did, String trackingId, ProofStatus.Status status) {
+        proofStatuses(did).replace(trackingId, new ProofStatus(trackingId, status));
+        meterRegistry.counter("studybits.proof.verifications", "outcome", status.name().toLowerCase()).increment();
+    }
+
+    public void forget(String did, String trackingId) {
+        proofStatuses(did).remove(trackingId);
+    }
+
+    /**
+     * The statuses of the student's proofs, oldest first.
+     */
+    public List<ProofStatus> getProofStatuses(String did) {
+        Map<String, ProofStatus> proofStatuses = proofStatuses(did);
+        synchronized (proofStatuses) {
+            return new ArrayList<>(proofStatuses.values());
+        }
+    }
+
+    public void invalidateAll() {
+        proofStatusesByDid.invalidateAll();
+    }
+
+    private Map<String, ProofStatus> proofStatuses(String did) {
+        return proofStatusesByDid.get(did, ignored -> Collections.synchronizedMap(new LinkedHashMap<String, ProofStatus>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProofStatus> eldest) {
+                return size() > maxPerStudent;
+            }
+        }));
+    }
+}
@@ -0,0 +1,111 @@
+package nl.quintor.studybits.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.hyperledger.indy.sdk.IndyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.CREDENTIAL_REQUEST;
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.PROOF;
+
+/**
+ * Responses to CREDENTIAL_REQUEST and PROOF envelopes, keyed by a hash of the envelope (DID, message type and
+ * ciphertext). A client retrying the exact same envelope gets the earlier response instead of a second credential or
+ * proof verification, and a retry arriving while the first is still processed waits for it. Failed responses are
+ * not kept.
+ */
+@Component
+@Slf4j
+public class ReplayCache {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nl.quintor.studybits.replay-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${nl.quintor.studybits.replay-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${nl.quintor.studybits.replay-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Set<String> replayableURNs = new HashSet<>();
+    private Cache<String, CompletableFuture<MessageEnvelope>> responses;
+
+    @PostConstruct
+    public void init() {
+        replayableURNs.addAll(Arrays.asList(CREDENTIAL_REQUEST.getURN(), PROOF.getURN()));
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "replayedResponses");
+    }
+
+    public CompletableFuture<MessageEnvelope> process(MessageEnvelope messageEnvelope, MessageProcessor processor) throws IndyException, IOException, ExecutionException, InterruptedException {
+        if (!enabled || !replayableURNs.contains(messageEnvelope.getMessageType().getURN())) {
+            return processor.process(messageEnvelope);
+        }
+
+        String key = key(messageEnvelope);
+        CompletableFuture<MessageEnvelope> response = new CompletableFuture<>();
+        CompletableFuture<MessageEnvelope> cached = responses.get(key, ignored -> response);
+        if (cached != response) {
+            log.debug("Replaying response to {} from {}", messageEnvelope.getMessageType().getURN(), messageEnvelope.getDid());
+            return cached;
+        }
+
+        try {
+            processor.process(messageEnvelope).whenComplete((result, e) -> {
+                if (e == null) {
+                    response.complete(result);
+                }
+                else {
+                    responses.asMap().remove(key, response);
+                    response.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                }
+            });
+        }
+        catch (Exception e) {
+            responses.asMap().remove(key, response);
+            response.completeExceptionally(e);
+            throw e;
+        }
+        return response;
+    }
+
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    private static String key(MessageEnvelope messageEnvelope) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(messageEnvelope.toJSON().getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
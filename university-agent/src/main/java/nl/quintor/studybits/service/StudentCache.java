@@ -0,0 +1,91 @@
+package nl.quintor.studybits.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Students by DID and by studentId, so handling a message doesn't query the same student over and over. Cached
+ * students are shared between threads and must not be modified; StudentService writes with update queries and
+ * invalidates the student afterwards.
+ */
+@Component
+@Slf4j
+public class StudentCache {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nl.quintor.studybits.student-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${nl.quintor.studybits.student-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, Student> studentsByDid;
+    private Cache<String, Student> studentsByStudentId;
+
+    @PostConstruct
+    public void init() {
+        studentsByDid = build();
+        studentsByStudentId = build();
+        CaffeineCacheMetrics.monitor(meterRegistry, studentsByDid, "studentsByDid");
+        CaffeineCacheMetrics.monitor(meterRegistry, studentsByStudentId, "studentsByStudentId");
+    }
+
+    public Student getByStudentDid(String studentDid, Function<String, Student> loader) {
+        return studentDid == null ? null : studentsByDid.get(studentDid, loader);
+    }
+
+    public Student getByStudentId(String studentId, Function<String, Student> loader) {
+        return studentId == null ? null : studentsByStudentId.get(studentId, loader);
+    }
+
+    /**
+     * Removes the student now and again when the current transaction commits, so a concurrent read of the old state
+     * can't stay cached.
+     */
+    public void invalidate(String studentId, String studentDid) {
+        evict(studentId, studentDid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evict(studentId, studentDid);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        studentsByDid.invalidateAll();
+        studentsByStudentId.invalidateAll();
+    }
+
+    private void evict(String studentId, String studentDid) {
+        log.debug("Invalidating cached student {}", studentId);
+        studentsByStudentId.invalidate(studentId);
+        if (studentDid != null) {
+            studentsByDid.invalidate(studentDid);
+        }
+    }
+
+    private Cache<String, Student> build() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,202 @@
+package nl.quintor.studybits.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.entity.Transcript;
+import nl.quintor.studybits.exceptions.PasswordEncoderBusyException;
+import nl.quintor.studybits.indy.wrapper.util.JSONUtil;
+import nl.quintor.studybits.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Imports students from newline delimited JSON, one {@link StudentRecord} per line. Records are read incrementally and
+ * handled in chunks: passwords are hashed on the password encoder's threads, at most {@code hash-concurrency} at a
+ * time so logins still get through, and each chunk is inserted in JDBC batches in its own transaction. When logins
+ * fill the encoder's queue the import backs off instead of failing. Students that already exist are skipped, so an
+ * import that was interrupted can be run again. A record whose password hash isn't a well-formed BCrypt hash is
+ * rejected, so it can't leave a student that nobody can log in as, or whose hash the encoder fails on.
+ */
+@Component
+@Slf4j
+public class StudentImportService {
+    private static final ObjectReader RECORD_READER = JSONUtil.mapper.readerFor(StudentRecord.class);
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}\\z");
+
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nl.quintor.studybits.student-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${nl.quintor.studybits.student-import.hash-concurrency:0}")
+    private int hashConcurrency;
+
+    @Value("${nl.quintor.studybits.student-import.max-backoff-ms:1000}")
+    private long maxBackoffMillis;
+
+    public ImportSummary importStudents(InputStream ndjson) throws IOException {
+        long start = System.nanoTime();
+        Counter imported = meterRegistry.counter("studybits.student_import.records", "result", "imported");
+        Counter skipped = meterRegistry.counter("studybits.student_import.records", "result", "skipped");
+        Counter rejected = meterRegistry.counter("studybits.student_import.records", "result", "rejected");
+        ImportSummary summary = new ImportSummary();
+        List<StudentRecord> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<StudentRecord> records = RECORD_READER.readValues(ndjson)) {
+            while (records.hasNextValue()) {
+                StudentRecord record = records.nextValue();
+                summary.read++;
+                if (record.getPasswordHash() != null && !BCRYPT_HASH.matcher(record.getPasswordHash()).matches()) {
+                    log.warn("Student import: rejected student {}, its password hash isn't a BCrypt hash", record.getStudentId());
+                    summary.rejected++;
+                    rejected.increment();
+                }
+                else {
+                    chunk.add(record);
+                }
+                if (chunk.size() == chunkSize || (!chunk.isEmpty() && !records.hasNextValue())) {
+                    int chunkImported = importChunk(chunk);
+                    summary.imported += chunkImported;
+                    summary.skipped += chunk.size() - chunkImported;
+                    imported.increment(chunkImported);
+                    skipped.increment(chunk.size() - chunkImported);
+                    chunk.clear();
+
+                    log.info("Student import: {} read, {} imported, {} skipped, {} rejected ({} students/s)", summary.read,
+                            summary.imported, summary.skipped, summary.rejected, String.format("%.0f", summary.read / seconds(start)));
+                }
+            }
+        }
+
+        summary.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Student import finished: {}", summary);
+        return summary;
+    }
+
+    private int importChunk(List<StudentRecord> chunk) {
+        Set<String> studentIds = chunk.stream()
+                .map(StudentRecord::getStudentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> existing = studentIds.isEmpty() ? Collections.emptySet() : studentRepository.findExistingStudentIds(studentIds);
+
+        // Skip students without id, students that exist and repeated ids within the chunk
+        Map<String, StudentRecord> newRecords = new LinkedHashMap<>();
+        for (StudentRecord record : chunk) {
+            if (record.getStudentId() != null && !existing.contains(record.getStudentId())) {
+                newRecords.putIfAbsent(record.getStudentId(), record);
+            }
+        }
+
+        // One more than the threads keeps the encoder busy without taking its whole queue
+        Semaphore hashPermits = new Semaphore(hashConcurrency > 0 ? hashConcurrency : passwordEncoder.getThreads() + 1);
+        List<CompletableFuture<Student>> pending = new ArrayList<>(newRecords.size());
+        for (StudentRecord record : newRecords.values()) {
+            pending.add(toStudent(record, hashPermits));
+        }
+        List<Student> students = pending.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        studentRepository.saveAll(students);
+        return students.size();
+    }
+
+    private CompletableFuture<Student> toStudent(StudentRecord record, Semaphore hashPermits) {
+        Student student = new Student();
+        student.setStudentId(record.getStudentId());
+        student.setFirstName(record.getFirstName());
+        student.setLastName(record.getLastName());
+        student.setTranscript(new Transcript(record.getDegree(), record.getStatus(), record.getAverage(), false));
+        if (record.getPasswordHash() != null) {
+            student.setPassword(record.getPasswordHash());
+        }
+        else if (record.getPassword() != null) {
+            hashPermits.acquireUninterruptibly();
+            return encode(record.getPassword())
+                    .whenComplete((hash, e) -> hashPermits.release())
+                    .thenApply(hash -> {
+                        student.setPassword(hash);
+                        return student;
+                    });
+        }
+        return CompletableFuture.completedFuture(student);
+    }
+
+    /**
+     * Submits the hash, waiting with a growing delay while the encoder's queue is full.
+     */
+    private CompletableFuture<String> encode(String password) {
+        long backoffMillis = 10;
+        while (true) {
+            try {
+                return passwordEncoder.encodeAsync(password);
+            }
+            catch (PasswordEncoderBusyException e) {
+                log.debug("Password encoder busy, retrying the import in {} ms", backoffMillis);
+                try {
+                    Thread.sleep(backoffMillis);
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while importing students", interrupted);
+                }
+                backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    private static double seconds(long start) {
+        return Math.max(System.nanoTime() - start, 1) / 1e9;
+    }
+
+    /**
+     * One line of the import. A password is hashed with the configured strength, a well-formed BCrypt password hash is
+     * stored as it is.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StudentRecord {
+        private String studentId;
+        private String password;
+        private String passwordHash;
+        private String firstName;
+        private String lastName;
+        private String degree;
+        private String status;
+        private String average;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportSummary {
+        private long read;
+        private long imported;
+        private long skipped;
+        private long rejected;
+        private long elapsedMillis;
+    }
+}
@@ -1,6 +1,5 @@
 package nl.quintor.studybits.service;
 
-import nl.quintor.studybits.entity.ExchangePosition;
 import nl.quintor.studybits.entity.Student;
 import nl.quintor.studybits.exceptions.UserAlreadyExistAuthenticationException;
 import nl.quintor.studybits.repository.StudentRepository;
@@ -8,7 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
@@ -20,7 +19,11 @@ public class StudentService {
     @Autowired
     private StudentRepository studentRepository;
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private CredentialOfferCache credentialOfferCache;
+    @Autowired
+    private StudentCache studentCache;
 
     @Transactional
     public void setConnectionData(String studentId, String myDid) {
@@ -32,36 +35,33 @@ public class StudentService {
 
         student.setMyDid(myDid);
         studentRepository.saveAndFlush(student);
+        studentCache.invalidate(studentId, student.getStudentDid());
     }
 
+    /**
+     * Returns a cached student, which must not be modified.
+     */
     @Transactional
     public Student getStudentByStudentId(String studentId) {
-        return studentRepository.getStudentByStudentId(studentId);
+        return studentCache.getByStudentId(studentId, studentRepository::getStudentByStudentId);
     }
 
+    /**
+     * Returns a cached student, which must not be modified.
+     */
     @Transactional
     public Student getStudentByStudentDid(String studentDid) {
-        return studentRepository.getStudentByStudentDid(studentDid);
+        return studentCache.getByStudentDid(studentDid, studentRepository::getStudentByStudentDid);
     }
 
+    /**
+     * Updates the student with a query, so the caller's (cached) student doesn't have to be read again.
+     */
     @Transactional
-    public void proveTranscript(String studentId) {
-        Student studentEntity = studentRepository.getStudentByStudentId(
-                studentId
-        );
-        studentEntity.getTranscript().setProven(true);
-        studentRepository.saveAndFlush(studentEntity);
-    }
-
-    @Transactional
-    public void setExchangePositionData(String did, String proofRequest, ExchangePosition exchangePosition) {
-        Student studentEntity = studentRepository.getStudentByStudentDid(
-                did
-        );
-
-        studentEntity.setProofRequest(proofRequest);
-        studentEntity.setExchangePosition(exchangePosition);
-        studentRepository.saveAndFlush(studentEntity);
+    public void proveTranscript(Student student) {
+        studentRepository.proveTranscript(student.getId());
+        studentCache.invalidate(student.getStudentId(), student.getStudentDid());
+        credentialOfferCache.invalidate(student.getStudentDid());
     }
 
     @Transactional
@@ -72,8 +72,24 @@ public class StudentService {
             throw new EntityNotFoundException("Student not found for studentId: " + studentId);
         }
 
+        credentialOfferCache.invalidate(student.getStudentDid());
+        studentCache.invalidate(studentId, student.getStudentDid());
         student.setStudentDid(studentDid);
         studentRepository.saveAndFlush(student);
+        studentCache.invalidate(studentId, studentDid);
+    }
+
+    @Transactional
+    public void updatePassword(String studentId, String passwordHash) {
+        Student student = studentRepository.getStudentByStudentId(studentId);
+
+        if (student == null) {
+            throw new EntityNotFoundException("Student not found for studentId: " + studentId);
+        }
+
+        student.setPassword(passwordHash);
+        studentRepository.save(student);
+        studentCache.invalidate(studentId, student.getStudentDid());
     }
 
     @Transactional
@@ -94,7 +110,7 @@ public class StudentService {
         if(!studentExists(id)) {
             Student student = new Student();
             student.setStudentId(id);
-            String passwordHash = bCryptPasswordEncoder.encode(password);
+            String passwordHash = passwordEncoder.encode(password);
             student.setPassword(passwordHash);
             student.setStudentDid(did);
 
@@ -105,7 +121,7 @@ public class StudentService {
     }
 
     public boolean studentExists(String studentId) {
-        if(studentRepository.getStudentByStudentId(studentId) != null) {
+        if(getStudentByStudentId(studentId) != null) {
             return true;
         }
 
@@ -113,6 +129,6 @@ public class StudentService {
     }
 
     public Boolean matchPassword(String password, String hashedPassword) {
-       return bCryptPasswordEncoder.matches(password, hashedPassword);
+       return passwordEncoder.matches(password, hashedPassword);
     }
 }
@@ -13,6 +13,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
@@ -22,7 +23,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Service
-public class StudentUserDetailService implements UserDetailsService {
+public class StudentUserDetailService implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     public StudentService studentService;
 
@@ -41,4 +42,13 @@ public class StudentUserDetailService implements UserDetailsService {
 
         return User.withUsername(student.getStudentId()).password(student.getPassword()).roles("USER").build();
     }
+
+    /**
+     * Called after a successful login when the stored hash was made with a different BCrypt strength than configured.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        studentService.updatePassword(user.getUsername(), newPassword);
+        return User.withUserDetails(user).password(newPassword).build();
+    }
 }
@@ -12,6 +12,8 @@ import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
 import nl.quintor.studybits.indy.wrapper.message.MessageEnvelopeCodec;
 import nl.quintor.studybits.indy.wrapper.util.PoolUtils;
 import nl.quintor.studybits.messages.AuthcryptableExchangePositions;
+import nl.quintor.studybits.messages.AuthcryptableProofStatuses;
+import nl.quintor.studybits.messages.ProofStatus;
 import nl.quintor.studybits.messages.StudyBitsMessageTypes;
 import nl.quintor.studybits.service.ExchangePositionService;
 import org.hyperledger.indy.sdk.IndyException;
@@ -32,6 +34,7 @@ import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.CONNECT
 import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.CREDENTIAL_OFFERS;
 import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.GET_REQUEST;
 import static nl.quintor.studybits.messages.StudyBitsMessageTypes.EXCHANGE_POSITIONS;
+import static nl.quintor.studybits.messages.StudyBitsMessageTypes.PROOF_STATUSES;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -245,11 +248,31 @@ public class ScenarioIT {
 
         MessageEnvelope proofEnvelope = studentCodec.encryptMessage(proof, IndyMessageTypes.PROOF, gentLisaDid).get();
 
-        givenCorrectHeaders(ENDPOINT_GENT)
+        MessageEnvelope<ProofStatus> receiptEnvelope = givenCorrectHeaders(ENDPOINT_GENT)
                 .body(proofEnvelope)
                 .post("/agent/message")
                 .then()
-                .assertThat().statusCode(200);
+                .assertThat().statusCode(202)
+                .extract().as(MessageEnvelope.class);
+        ProofStatus receipt = studentCodec.decryptMessage(receiptEnvelope).get();
+        assertThat(receipt.getStatus(), is(equalTo(ProofStatus.Status.PENDING)));
+
+        String getProofStatuses = studentCodec.encryptMessage(PROOF_STATUSES.getURN(), GET_REQUEST, gentLisaDid).get().toJSON();
+        ProofStatus proofStatus = receipt;
+        for (int i = 0; i < 30 && proofStatus.getStatus() == ProofStatus.Status.PENDING; i++) {
+            Thread.sleep(1000);
+            MessageEnvelope<AuthcryptableProofStatuses> proofStatusesEnvelope = givenCorrectHeaders(ENDPOINT_GENT)
+                    .body(getProofStatuses)
+                    .post("/agent/message")
+                    .then()
+                    .assertThat().statusCode(200)
+                    .extract().as(MessageEnvelope.class);
+            proofStatus = studentCodec.decryptMessage(proofStatusesEnvelope).get().getProofStatuses().stream()
+                    .filter(status -> status.getTrackingId().equals(receipt.getTrackingId()))
+                    .findFirst()
+                    .orElseThrow();
+        }
+        assertThat(proofStatus.getStatus(), is(equalTo(ProofStatus.Status.ACCEPTED)));
 
         exchangePositionsMessageEnvelope = givenCorrectHeaders(ENDPOINT_GENT)
                 .body(getRequest)
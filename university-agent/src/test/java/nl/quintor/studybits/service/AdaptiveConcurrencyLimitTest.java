@@ -0,0 +1,65 @@
+package nl.quintor.studybits.service;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveConcurrencyLimitTest {
+    private static final long TARGET = 100;
+    private static final long FAST = 10;
+    private static final long SLOW = 1000;
+
+    @Test
+    public void admitsUpToTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, TARGET);
+
+        assertThat(limit.tryAcquire(), is(true));
+        assertThat(limit.tryAcquire(), is(true));
+        assertThat(limit.tryAcquire(), is(false));
+
+        limit.release(FAST);
+        assertThat(limit.getInFlight(), is(1));
+        assertThat(limit.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void growsByOnePerFastWindowUpToTheMaximum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 3, TARGET);
+
+        complete(limit, 2, 0);
+        assertThat(limit.getLimit(), is(3));
+
+        complete(limit, 3, 0);
+        assertThat(limit.getLimit(), is(3));
+    }
+
+    @Test
+    public void shrinksWhenMoreThanATenthOfAWindowIsSlow() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 5, 20, TARGET);
+
+        // One slow request in ten doesn't count against the limit
+        complete(limit, 10, 1);
+        assertThat(limit.getLimit(), is(11));
+
+        complete(limit, 11, 2);
+        assertThat(limit.getLimit(), is(9));
+    }
+
+    @Test
+    public void doesNotShrinkBelowTheMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(5, 5, 20, TARGET);
+
+        complete(limit, 5, 5);
+        assertThat(limit.getLimit(), is(5));
+    }
+
+    private static void complete(AdaptiveConcurrencyLimit limit, int requests, int slow) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limit.tryAcquire(), is(true));
+        }
+        for (int i = 0; i < requests; i++) {
+            limit.release(i < slow ? SLOW : FAST);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.quintor.studybits.config.LoginAuthenticationEntryPoint;
+import nl.quintor.studybits.exceptions.PasswordEncoderBusyException;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BoundedPasswordEncoderTest {
+    // Slow enough that the single thread is still hashing while the test fills the queue
+    private static final int SLOW_STRENGTH = 12;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @After
+    public void tearDown() {
+        if (passwordEncoder != null) {
+            passwordEncoder.shutdown();
+        }
+    }
+
+    @Test
+    public void encodesAndMatches() {
+        passwordEncoder = new BoundedPasswordEncoder(4, 2, 4, 10000, meterRegistry);
+
+        String hash = passwordEncoder.encode("test1234");
+        assertThat(passwordEncoder.matches("test1234", hash), is(true));
+        assertThat(passwordEncoder.matches("wrong", hash), is(false));
+    }
+
+    @Test
+    public void upgradesHashesOfAnotherStrength() {
+        passwordEncoder = new BoundedPasswordEncoder(4, 1, 1, 10000, meterRegistry);
+
+        assertThat(passwordEncoder.upgradeEncoding(passwordEncoder.encode("test1234")), is(false));
+        assertThat(passwordEncoder.upgradeEncoding("$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"), is(true));
+        assertThat(passwordEncoder.upgradeEncoding("test1234"), is(false));
+        assertThat(passwordEncoder.upgradeEncoding(null), is(false));
+    }
+
+    @Test(expected = PasswordEncoderBusyException.class)
+    public void rejectsRightAwayWhenTheQueueIsFull() {
+        passwordEncoder = new BoundedPasswordEncoder(SLOW_STRENGTH, 1, 1, 10000, meterRegistry);
+        passwordEncoder.encodeAsync("running");
+        passwordEncoder.encodeAsync("queued");
+
+        passwordEncoder.matches("test1234", "$2a$12$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy");
+    }
+
+    @Test
+    public void givesUpAfterWaitingTooLong() {
+        passwordEncoder = new BoundedPasswordEncoder(SLOW_STRENGTH, 1, 1, 50, meterRegistry);
+        passwordEncoder.encodeAsync("running");
+
+        try {
+            passwordEncoder.encode("test1234");
+            throw new AssertionError("Encoded while the only thread was busy");
+        }
+        catch (PasswordEncoderBusyException e) {
+            // Expected, the encode is cancelled instead of waiting for the running one
+        }
+        assertThat(meterRegistry.counter("studybits.password.rejected").count(), is(1.0));
+    }
+
+    @Test
+    public void busyLoginIsAnsweredWithServiceUnavailable() throws Exception {
+        LoginAuthenticationEntryPoint entryPoint = new LoginAuthenticationEntryPoint();
+
+        MockHttpServletResponse busy = new MockHttpServletResponse();
+        entryPoint.commence(new MockHttpServletRequest(), busy, new PasswordEncoderBusyException("Too many logins in progress"));
+        assertThat(busy.getStatus(), is(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        assertThat(busy.getHeader("Retry-After"), is("1"));
+
+        // As thrown while loading a new student
+        MockHttpServletResponse wrapped = new MockHttpServletResponse();
+        entryPoint.commence(new MockHttpServletRequest(), wrapped,
+                new InternalAuthenticationServiceException("Loading the user failed", new PasswordEncoderBusyException("Too many logins in progress")));
+        assertThat(wrapped.getStatus(), is(HttpStatus.SERVICE_UNAVAILABLE.value()));
+
+        MockHttpServletResponse badCredentials = new MockHttpServletResponse();
+        entryPoint.commence(new MockHttpServletRequest(), badCredentials, new InternalAuthenticationServiceException("Bad credentials"));
+        assertThat(badCredentials.getStatus(), is(HttpStatus.UNAUTHORIZED.value()));
+    }
+}
@@ -0,0 +1,195 @@
+package nl.quintor.studybits.service;
+
+import nl.quintor.studybits.entity.ExchangeApplication;
+import nl.quintor.studybits.entity.ExchangePosition;
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.entity.Transcript;
+import nl.quintor.studybits.indy.EnvelopeCodec;
+import nl.quintor.studybits.indy.SimulatedLedger;
+import nl.quintor.studybits.messages.AuthcryptableExchangePositions;
+import nl.quintor.studybits.messages.ExchangePositionsRequest;
+import nl.quintor.studybits.repository.ExchangeApplicationRepository;
+import nl.quintor.studybits.repository.ExchangePositionRepository;
+import nl.quintor.studybits.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ExchangePositionService.class, StudentService.class, StudentCache.class, ProofRequestTemplateCatalog.class, SimpleMeterRegistry.class})
+// Let the service commit its own transaction, so its writes are actually flushed and counted
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ExchangePositionServiceTest {
+    private static final String STUDENT_DID = "SYqJSzcfsJMhSt7qjcQ8CC";
+    private static final int POSITION_COUNT = 50;
+
+    @MockBean
+    private EnvelopeCodec envelopeCodec;
+    @MockBean
+    private IdentityService identityService;
+    @MockBean
+    private CredentialOfferCache credentialOfferCache;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ExchangePositionService exchangePositionService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private ExchangePositionRepository exchangePositionRepository;
+    @Autowired
+    private ExchangeApplicationRepository exchangeApplicationRepository;
+    @Autowired
+    private StudentCache studentCache;
+    @Autowired
+    private ProofRequestTemplateCatalog proofRequestTemplateCatalog;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        exchangeApplicationRepository.deleteAll();
+        studentRepository.deleteAll();
+        exchangePositionRepository.deleteAll();
+        studentCache.invalidateAll();
+
+        Student student = new Student();
+        student.setStudentId("12345678");
+        student.setStudentDid(STUDENT_DID);
+        student.setTranscript(new Transcript("Bachelor of Arts, Marketing", "enrolled", "8", false));
+        studentRepository.saveAndFlush(student);
+
+        for (int i = 0; i < POSITION_COUNT; i++) {
+            exchangePositionService.createExchangePosition("credDefId");
+        }
+
+        when(envelopeCodec.encryptMessage(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void getAllCreatesApplicationsOnceAndSendsTheSameProofRequests() throws Exception {
+        statistics.clear();
+        exchangePositionService.getAll(STUDENT_DID).get();
+        AuthcryptableExchangePositions firstListing = lastListing();
+
+        // A pending application with its own nonce for every position shown for the first time
+        assertThat(statistics.getEntityInsertCount(), is((long) POSITION_COUNT));
+        assertThat(new HashSet<>(nonces(firstListing)).size(), is(POSITION_COUNT));
+
+        statistics.clear();
+        exchangePositionService.getAll(STUDENT_DID).get();
+
+        // The student is cached, positions and applications are read, and polling again writes nothing
+        assertThat(statistics.getPrepareStatementCount(), is(lessThanOrEqualTo(2L)));
+        assertThat(statistics.getEntityInsertCount(), is(0L));
+        assertThat(statistics.getEntityUpdateCount(), is(0L));
+        assertThat(nonces(lastListing()), is(nonces(firstListing)));
+        assertThat(exchangeApplicationRepository.count(), is((long) POSITION_COUNT));
+    }
+
+    @Test
+    public void fulfillApplicationFulfillsOnlyThatApplication() throws Exception {
+        exchangePositionService.getAll(STUDENT_DID).get();
+        List<Long> exchangePositionIds = exchangePositionRepository.findAll().stream()
+                .map(ExchangePosition::getId)
+                .collect(Collectors.toList());
+        List<ExchangeApplication> pending = exchangePositionService.findPendingApplications(STUDENT_DID, exchangePositionIds);
+        assertThat(pending.size(), is(POSITION_COUNT));
+
+        exchangePositionService.fulfillApplication(pending.get(0).getId());
+
+        assertThat(exchangeApplicationRepository.findById(pending.get(0).getId()).get().getStatus(), is(ExchangeApplication.Status.FULFILLED));
+        assertThat(exchangePositionService.findPendingApplications(STUDENT_DID, exchangePositionIds).size(), is(POSITION_COUNT - 1));
+        assertThat(exchangePositionService.findPendingApplications("someoneElse", exchangePositionIds).isEmpty(), is(true));
+    }
+
+    @Test
+    public void findMatchingPositionsTellsPositionsApartByRestrictions() throws Exception {
+        exchangePositionService.createExchangePosition("otherCredDefId");
+        List<ExchangePosition> exchangePositions = exchangePositionRepository.findAll();
+        exchangePositions.sort(Comparator.comparing(ExchangePosition::getId));
+        ExchangePosition other = exchangePositions.get(POSITION_COUNT);
+
+        // Same attributes as the other positions, but from another credential definition
+        List<Long> matching = proofRequestTemplateCatalog.findMatchingPositions(SimulatedLedger.proofFor(
+                proofRequestTemplateCatalog.createProofRequest(other, proofRequestTemplateCatalog.createNonce())));
+        assertThat(matching, contains(other.getId()));
+
+        matching = proofRequestTemplateCatalog.findMatchingPositions(SimulatedLedger.proofFor(
+                proofRequestTemplateCatalog.createProofRequest(exchangePositions.get(0), proofRequestTemplateCatalog.createNonce())));
+        assertThat(matching.size(), is(POSITION_COUNT));
+        assertThat(matching.contains(other.getId()), is(false));
+    }
+
+    @Test
+    public void getPagePagesThroughPositionsAndAnswersNotModified() throws Exception {
+        exchangePositionService.getPage(STUDENT_DID, new ExchangePositionsRequest(null, 20, null)).get();
+        AuthcryptableExchangePositions firstPage = lastListing();
+        assertThat(firstPage.getExchangePositions().size(), is(20));
+        assertThat(firstPage.getNextCursor(), is(notNullValue()));
+
+        exchangePositionService.getPage(STUDENT_DID, new ExchangePositionsRequest(firstPage.getNextCursor(), 40, firstPage.getCatalogVersion())).get();
+        AuthcryptableExchangePositions lastPage = lastListing();
+        assertThat(lastPage.getExchangePositions().size(), is(POSITION_COUNT - 20));
+        assertThat(lastPage.getNextCursor(), is(nullValue()));
+
+        statistics.clear();
+        exchangePositionService.getPage(STUDENT_DID, new ExchangePositionsRequest(null, 20, firstPage.getCatalogVersion())).get();
+
+        // The student is cached, and an unchanged catalog isn't read
+        assertThat(lastListing().isNotModified(), is(true));
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+
+        exchangePositionService.createExchangePosition("credDefId");
+        exchangePositionService.getPage(STUDENT_DID, new ExchangePositionsRequest(null, 20, firstPage.getCatalogVersion())).get();
+        assertThat(lastListing().isNotModified(), is(false));
+    }
+
+    private static List<String> nonces(AuthcryptableExchangePositions listing) {
+        return listing.getExchangePositions().stream()
+                .map(exchangePosition -> exchangePosition.getProofRequest().getNonce())
+                .collect(Collectors.toList());
+    }
+
+    private AuthcryptableExchangePositions lastListing() {
+        ArgumentCaptor<AuthcryptableExchangePositions> listings = ArgumentCaptor.forClass(AuthcryptableExchangePositions.class);
+        verify(envelopeCodec, atLeastOnce()).encryptMessage(listings.capture(), any(), any());
+        return listings.getValue();
+    }
+}
@@ -0,0 +1,139 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.quintor.studybits.entity.InboxMessage;
+import nl.quintor.studybits.exceptions.LaneBusyException;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.GET_REQUEST;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {InboxWorker.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"nl.quintor.studybits.inbox.workers=4", "nl.quintor.studybits.inbox.poll-interval-ms=10", "nl.quintor.studybits.inbox.retry-delay-ms=10"})
+// Every test gets an InboxWorker of its own, with its own draining thread
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InboxWorkerTest {
+    @MockBean
+    private InboxService inboxService;
+    @MockBean
+    private AgentService agentService;
+
+    @Autowired
+    private InboxWorker inboxWorker;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<InboxService.Completion> completions = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        when(inboxService.isEnabled()).thenReturn(true);
+        doAnswer(invocation -> completions.addAll(invocation.getArgument(0))).when(inboxService).complete(any());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        inboxWorker.stop();
+    }
+
+    @Test
+    public void claimedEnvelopesAreProcessedAndTheirOutcomesWritten() throws Exception {
+        MessageEnvelope response = envelope("agentDid");
+        when(inboxService.claim(anyInt())).thenReturn(Arrays.asList(inboxMessage(1, "did1"), inboxMessage(2, "did2")), Collections.emptyList());
+        when(agentService.processMessage(any())).thenAnswer(invocation -> {
+            MessageEnvelope messageEnvelope = invocation.getArgument(0);
+            return messageEnvelope.getDid().equals("did1") ? CompletableFuture.completedFuture(response) : CompletableFuture.failedFuture(new IllegalStateException("Unknown student"));
+        });
+
+        inboxWorker.start(null);
+        List<InboxService.Completion> written = awaitCompletions(2);
+
+        assertThat(written.get(0).getStatus(), is(InboxMessage.Status.DONE));
+        assertThat(written.get(0).getResponse(), is(response.toJSON()));
+        assertThat(written.get(1).getStatus(), is(InboxMessage.Status.FAILED));
+        assertThat(written.get(1).getError(), is("Unknown student"));
+    }
+
+    @Test
+    public void envelopeIsRetriedWhileTheAgentIsBusy() throws Exception {
+        when(inboxService.claim(anyInt())).thenReturn(Collections.singletonList(inboxMessage(1, "did1")), Collections.emptyList());
+        when(agentService.processMessage(any())).thenReturn(
+                CompletableFuture.failedFuture(new LaneBusyException("Too many messages waiting")),
+                CompletableFuture.completedFuture(envelope("agentDid")));
+
+        inboxWorker.start(null);
+        List<InboxService.Completion> written = awaitCompletions(1);
+
+        assertThat(written.get(0).getStatus(), is(InboxMessage.Status.DONE));
+        verify(agentService, times(2)).processMessage(any());
+        assertThat(meterRegistry.counter("studybits.inbox.processed", "result", "retried").count(), is(1.0));
+    }
+
+    @Test
+    public void envelopesOfADidAreProcessedOneAfterAnother() throws Exception {
+        CompletableFuture<MessageEnvelope> first = new CompletableFuture<>();
+        when(inboxService.claim(anyInt())).thenReturn(Arrays.asList(inboxMessage(1, "did1"), inboxMessage(2, "did1")), Collections.emptyList());
+        when(agentService.processMessage(any())).thenReturn(first, CompletableFuture.completedFuture(envelope("agentDid")));
+
+        inboxWorker.start(null);
+        verify(agentService, after(200).times(1)).processMessage(any());
+
+        first.complete(envelope("agentDid"));
+        List<InboxService.Completion> written = awaitCompletions(2);
+
+        assertThat(written.stream().map(InboxService.Completion::getStatus).collect(Collectors.toList()), is(Arrays.asList(InboxMessage.Status.DONE, InboxMessage.Status.DONE)));
+    }
+
+    private List<InboxService.Completion> awaitCompletions(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (completions.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        List<InboxService.Completion> written;
+        synchronized (completions) {
+            written = new ArrayList<>(completions);
+        }
+        assertThat(written.size(), is(count));
+        written.sort(Comparator.comparingLong(InboxService.Completion::getId));
+        return written;
+    }
+
+    private static InboxMessage inboxMessage(long id, String did) throws Exception {
+        return new InboxMessage(id, envelope(did).toJSON(), InboxMessage.Status.CLAIMED, null, null, Instant.now(), null);
+    }
+
+    private static MessageEnvelope envelope(String did) throws Exception {
+        return MessageEnvelope.parseFromString("{\"id\":\"" + did + "\",\"type\":\"" + GET_REQUEST.getURN() + "\",\"message\":\"request\"}", GET_REQUEST);
+    }
+}
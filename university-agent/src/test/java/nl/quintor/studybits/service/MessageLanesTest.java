@@ -0,0 +1,123 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.quintor.studybits.exceptions.LaneBusyException;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.GET_REQUEST;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {MessageLanes.class, SimpleMeterRegistry.class, MessageLanesTest.Config.class})
+@TestPropertySource(properties = {"nl.quintor.studybits.lanes.count=4", "nl.quintor.studybits.lanes.max-depth=3"})
+// Tests leave messages waiting, so every test gets empty lanes
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MessageLanesTest {
+    @Autowired
+    private MessageLanes messageLanes;
+
+    private final List<String> started = new ArrayList<>();
+
+    @Configuration
+    static class Config {
+        // Runs waiting messages on the thread that completes the message before them
+        @Bean
+        public Executor agentExecutor() {
+            return Runnable::run;
+        }
+    }
+
+    @Test
+    public void messagesOfADidRunOneAfterAnother() throws Exception {
+        String did = "orderedDid";
+        CompletableFuture<MessageEnvelope> first = new CompletableFuture<>();
+        CompletableFuture<MessageEnvelope> second = new CompletableFuture<>();
+
+        messageLanes.process(envelope(did), recording("first", first));
+        CompletableFuture<MessageEnvelope> secondResult = messageLanes.process(envelope(did), recording("second", second));
+        assertThat(started, is(Arrays.asList("first")));
+
+        first.complete(null);
+        assertThat(started, is(Arrays.asList("first", "second")));
+        assertThat(secondResult.isDone(), is(false));
+
+        second.complete(null);
+        assertThat(secondResult.isDone(), is(true));
+    }
+
+    @Test
+    public void failedMessageDoesNotBlockTheLane() throws Exception {
+        String did = "failingDid";
+        CompletableFuture<MessageEnvelope> first = new CompletableFuture<>();
+
+        messageLanes.process(envelope(did), recording("first", first));
+        messageLanes.process(envelope(did), recording("second", CompletableFuture.completedFuture(null)));
+
+        first.completeExceptionally(new IllegalStateException("Handler failed"));
+        assertThat(started, is(Arrays.asList("first", "second")));
+    }
+
+    @Test
+    public void fullLaneRejectsMessagesUntilOneCompletes() throws Exception {
+        String did = "busyDid";
+        CompletableFuture<MessageEnvelope> first = new CompletableFuture<>();
+        messageLanes.process(envelope(did), recording("first", first));
+        messageLanes.process(envelope(did), recording("second", new CompletableFuture<>()));
+        messageLanes.process(envelope(did), recording("third", new CompletableFuture<>()));
+
+        try {
+            messageLanes.process(envelope(did), recording("fourth", new CompletableFuture<>()));
+            throw new AssertionError("Fourth message accepted on a full lane");
+        }
+        catch (LaneBusyException e) {
+            assertThat(started, is(Arrays.asList("first")));
+        }
+
+        first.complete(null);
+        messageLanes.process(envelope(did), recording("fourth", new CompletableFuture<>()));
+        assertThat(started, is(Arrays.asList("first", "second")));
+    }
+
+    @Test
+    public void unorderedMessageRunsRightAwayAndKeepsTheOrderOfTheOthers() throws Exception {
+        String did = "pollingDid";
+        CompletableFuture<MessageEnvelope> first = new CompletableFuture<>();
+        CompletableFuture<MessageEnvelope> poll = new CompletableFuture<>();
+
+        messageLanes.process(envelope(did), recording("first", first));
+        messageLanes.process(envelope(did), CompletableFuture.completedFuture(false), recording("poll", poll));
+        messageLanes.process(envelope(did), recording("third", new CompletableFuture<>()));
+        assertThat(started, is(Arrays.asList("first", "poll")));
+
+        // The third waits for the first, not for the poll
+        first.complete(null);
+        assertThat(started, is(Arrays.asList("first", "poll", "third")));
+    }
+
+    private MessageProcessor recording(String name, CompletableFuture<MessageEnvelope> response) {
+        return messageEnvelope -> {
+            started.add(name);
+            return response;
+        };
+    }
+
+    private static MessageEnvelope envelope(String did) throws Exception {
+        return MessageEnvelope.parseFromString("{\"id\":\"" + did + "\",\"type\":\"" + GET_REQUEST.getURN() + "\",\"message\":\"request\"}", GET_REQUEST);
+    }
+}
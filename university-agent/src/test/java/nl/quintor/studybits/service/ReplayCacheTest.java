@@ -0,0 +1,96 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.quintor.studybits.indy.wrapper.message.MessageEnvelope;
+import nl.quintor.studybits.indy.wrapper.message.MessageType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.GET_REQUEST;
+import static nl.quintor.studybits.indy.wrapper.message.IndyMessageTypes.PROOF;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {ReplayCache.class, SimpleMeterRegistry.class})
+public class ReplayCacheTest {
+    private static final String STUDENT_DID = "SYqJSzcfsJMhSt7qjcQ8CC";
+
+    @Autowired
+    private ReplayCache replayCache;
+
+    private final AtomicInteger processed = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        replayCache.invalidateAll();
+    }
+
+    @Test
+    public void retryWhileProcessingWaitsForTheFirstResponse() throws Exception {
+        CompletableFuture<MessageEnvelope> pending = new CompletableFuture<>();
+        MessageEnvelope response = envelope(PROOF, "receipt");
+
+        CompletableFuture<MessageEnvelope> first = replayCache.process(envelope(PROOF, "proof"), counting(pending));
+        CompletableFuture<MessageEnvelope> retry = replayCache.process(envelope(PROOF, "proof"), counting(pending));
+
+        assertThat(processed.get(), is(1));
+        assertThat(retry.isDone(), is(false));
+
+        pending.complete(response);
+        assertThat(first.get(), is(sameInstance(response)));
+        assertThat(retry.get(), is(sameInstance(response)));
+
+        // Also after the first has been answered
+        assertThat(replayCache.process(envelope(PROOF, "proof"), counting(pending)).get(), is(sameInstance(response)));
+        assertThat(processed.get(), is(1));
+    }
+
+    @Test
+    public void differentEnvelopesAreProcessedSeparately() throws Exception {
+        replayCache.process(envelope(PROOF, "proof"), counting(new CompletableFuture<>()));
+        replayCache.process(envelope(PROOF, "otherProof"), counting(new CompletableFuture<>()));
+
+        assertThat(processed.get(), is(2));
+    }
+
+    @Test
+    public void failedResponsesAreNotKept() throws Exception {
+        CompletableFuture<MessageEnvelope> failed = replayCache.process(envelope(PROOF, "proof"),
+                counting(CompletableFuture.failedFuture(new IllegalStateException("Verification failed"))));
+        assertThat(failed.isCompletedExceptionally(), is(true));
+
+        MessageEnvelope response = envelope(PROOF, "receipt");
+        assertThat(replayCache.process(envelope(PROOF, "proof"), counting(CompletableFuture.completedFuture(response))).get(), is(sameInstance(response)));
+        assertThat(processed.get(), is(2));
+    }
+
+    @Test
+    public void otherMessageTypesAreNotReplayed() throws Exception {
+        CompletableFuture<MessageEnvelope> response = CompletableFuture.completedFuture(envelope(GET_REQUEST, "response"));
+
+        replayCache.process(envelope(GET_REQUEST, "request"), counting(response)).get();
+        replayCache.process(envelope(GET_REQUEST, "request"), counting(response)).get();
+
+        assertThat(processed.get(), is(2));
+    }
+
+    private MessageProcessor counting(CompletableFuture<MessageEnvelope> response) {
+        return messageEnvelope -> {
+            processed.incrementAndGet();
+            return response;
+        };
+    }
+
+    private static MessageEnvelope envelope(MessageType<?> messageType, String message) throws Exception {
+        return MessageEnvelope.parseFromString("{\"id\":\"" + STUDENT_DID + "\",\"type\":\"" + messageType.getURN() + "\",\"message\":\"" + message + "\"}", messageType);
+    }
+}
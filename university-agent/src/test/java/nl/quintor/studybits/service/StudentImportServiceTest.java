@@ -0,0 +1,115 @@
+package nl.quintor.studybits.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.quintor.studybits.entity.Student;
+import nl.quintor.studybits.entity.Transcript;
+import nl.quintor.studybits.exceptions.PasswordEncoderBusyException;
+import nl.quintor.studybits.repository.StudentRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "nl.quintor.studybits.student-import.chunk-size=2")
+@Import({StudentImportService.class, SimpleMeterRegistry.class})
+public class StudentImportServiceTest {
+    private static final String BCRYPT_HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    @MockBean
+    private BoundedPasswordEncoder passwordEncoder;
+    @SpyBean
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private StudentImportService studentImportService;
+
+    @Before
+    public void setUp() {
+        when(passwordEncoder.getThreads()).thenReturn(2);
+        when(passwordEncoder.encodeAsync(any())).thenAnswer(invocation -> CompletableFuture.completedFuture("hashed:" + invocation.getArgument(0)));
+    }
+
+    @Test
+    public void importsInChunksAndSkipsExistingStudents() throws Exception {
+        Student existing = new Student();
+        existing.setStudentId("1");
+        existing.setPassword(BCRYPT_HASH);
+        existing.setTranscript(new Transcript("Bachelor of Arts, Marketing", "enrolled", "8", false));
+        studentRepository.saveAndFlush(existing);
+
+        StudentImportService.ImportSummary summary = studentImportService.importStudents(ndjson(
+                record("1", "\"password\":\"first\""),
+                record("2", "\"password\":\"second\""),
+                record("3", "\"passwordHash\":\"" + BCRYPT_HASH + "\""),
+                record("4", "\"password\":\"fourth\""),
+                record("5", "\"password\":\"fifth\"")));
+
+        assertThat(summary.getRead(), is(5L));
+        assertThat(summary.getImported(), is(4L));
+        assertThat(summary.getSkipped(), is(1L));
+        assertThat(summary.getRejected(), is(0L));
+        // Chunks of two, the last one flushed at the end of the input
+        verify(studentRepository, times(3)).findExistingStudentIds(any());
+
+        assertThat(studentRepository.getStudentByStudentId("1").getPassword(), is(BCRYPT_HASH));
+        assertThat(studentRepository.getStudentByStudentId("2").getPassword(), is("hashed:second"));
+        assertThat(studentRepository.getStudentByStudentId("3").getPassword(), is(BCRYPT_HASH));
+        assertThat(studentRepository.getStudentByStudentId("5").getTranscript().getDegree(), is("Bachelor of Arts, Marketing"));
+    }
+
+    @Test
+    public void rejectsMalformedPasswordHashes() throws Exception {
+        StudentImportService.ImportSummary summary = studentImportService.importStudents(ndjson(
+                record("1", "\"passwordHash\":\"test1234\""),
+                record("2", "\"passwordHash\":\"" + BCRYPT_HASH.substring(1) + "\""),
+                record("3", "\"passwordHash\":\"" + BCRYPT_HASH + "\"")));
+
+        assertThat(summary.getRead(), is(3L));
+        assertThat(summary.getImported(), is(1L));
+        assertThat(summary.getRejected(), is(2L));
+        assertThat(studentRepository.getStudentByStudentId("1"), is(nullValue()));
+        assertThat(studentRepository.getStudentByStudentId("2"), is(nullValue()));
+    }
+
+    @Test
+    public void skipsRepeatedStudentsAndWaitsForABusyEncoder() throws Exception {
+        when(passwordEncoder.encodeAsync(any()))
+                .thenThrow(new PasswordEncoderBusyException("Too many password operations in progress"))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture("hashed:" + invocation.getArgument(0)));
+
+        StudentImportService.ImportSummary summary = studentImportService.importStudents(ndjson(
+                record("1", "\"password\":\"first\""),
+                record("1", "\"password\":\"again\"")));
+
+        assertThat(summary.getImported(), is(1L));
+        assertThat(summary.getSkipped(), is(1L));
+        assertThat(studentRepository.getStudentByStudentId("1").getPassword(), is("hashed:first"));
+    }
+
+    private static String record(String studentId, String password) {
+        return "{\"studentId\":\"" + studentId + "\"," + password + ",\"firstName\":\"Lisa\",\"lastName\":\"Veren\","
+                + "\"degree\":\"Bachelor of Arts, Marketing\",\"status\":\"enrolled\",\"average\":\"8\"}";
+    }
+
+    private static ByteArrayInputStream ndjson(String... records) {
+        return new ByteArrayInputStream(String.join("\n", records).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,38 @@
+package nl.quintor.studybits.service;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TokenBucketTest {
+    @Test
+    public void allowsABurstThenRejects() {
+        TokenBucket tokenBucket = new TokenBucket(0.001, 3);
+
+        assertThat(tokenBucket.tryAcquire(), is(true));
+        assertThat(tokenBucket.tryAcquire(), is(true));
+        assertThat(tokenBucket.tryAcquire(), is(true));
+        assertThat(tokenBucket.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void refillsAtTheRate() throws Exception {
+        TokenBucket tokenBucket = new TokenBucket(1000, 1);
+
+        assertThat(tokenBucket.tryAcquire(), is(true));
+        Thread.sleep(20);
+        assertThat(tokenBucket.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void doesNotSaveMoreThanABurst() throws Exception {
+        TokenBucket tokenBucket = new TokenBucket(10, 2);
+
+        Thread.sleep(300);
+        assertThat(tokenBucket.tryAcquire(), is(true));
+        assertThat(tokenBucket.tryAcquire(), is(true));
+        // Too soon for a third token at this rate, unless the bucket saved more than its burst
+        assertThat(tokenBucket.tryAcquire(), is(false));
+    }
+}